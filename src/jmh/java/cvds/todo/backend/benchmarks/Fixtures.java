@@ -0,0 +1,36 @@
+package cvds.todo.backend.benchmarks;
+
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Stand-ins for the database, so the benchmarks measure the code of the services alone.
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * A user repository that only knows the given user, by username.
+     */
+    static UserRepository userRepository(UserModel user) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsername") && user != null && user.getUsername().equals(args[0])) {
+                        return user;
+                    }
+                    return null;
+                });
+    }
+
+    static UserModel user(String id, String username) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+}
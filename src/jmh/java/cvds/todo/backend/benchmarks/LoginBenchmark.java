@@ -0,0 +1,66 @@
+package cvds.todo.backend.benchmarks;
+
+import cvds.todo.backend.Config;
+import cvds.todo.backend.exceptions.UserException;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.PasswordHashingService;
+import cvds.todo.backend.services.UserService;
+import cvds.todo.backend.services.UsernameCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.loginUser with the default password setting (bcrypt strength 10), including
+ * the hashing pool, for a correct and a wrong password.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+    private static final String PASSWORD = "password123";
+
+    @Param({"10"})
+    private int bcryptStrength;
+
+    private UserService userService;
+    private PasswordHashingService passwordHashingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PasswordEncoder passwordEncoder = new Config().passwordEncoder("bcrypt", bcryptStrength, 19456, 2);
+        passwordHashingService = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 64, 5000);
+        UserModel user = Fixtures.user("user-1", "loginuser");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", Fixtures.userRepository(user));
+        ReflectionTestUtils.setField(userService, "passwordHashingService", passwordHashingService);
+        ReflectionTestUtils.setField(userService, "usernameCache", new UsernameCache(new SimpleMeterRegistry(), false, 0, 0, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Benchmark
+    public UserModel login() throws UserException {
+        return userService.loginUser("loginuser", PASSWORD);
+    }
+
+    @Benchmark
+    public Object loginWithWrongPassword() {
+        try {
+            return userService.loginUser("loginuser", "wrongPassword");
+        } catch (UserException e) {
+            return e;
+        }
+    }
+}
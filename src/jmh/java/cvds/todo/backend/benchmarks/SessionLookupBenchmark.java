@@ -0,0 +1,56 @@
+package cvds.todo.backend.benchmarks;
+
+import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.InMemorySessionStore;
+import cvds.todo.backend.services.MappedSessionStore;
+import cvds.todo.backend.services.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionService.getUserFromSession runs on every authenticated request. Measures a lookup of
+ * a random active session as the number of stored sessions grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionLookupBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int sessions;
+
+    @Param({"memory", "mapped"})
+    private String store;
+
+    private SessionService sessionService;
+    private String[] sessionIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SessionStore sessionStore = store.equals("mapped") ? MappedSessionStore.offHeap(sessions) : new InMemorySessionStore();
+        sessionService = new SessionService(sessionStore, new SimpleMeterRegistry());
+        sessionIds = new String[sessions];
+        long now = System.currentTimeMillis();
+        long expirationTime = now + TimeUnit.DAYS.toMillis(1);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < sessions; i++) {
+            // Random ids, like the UUIDs SessionService creates
+            sessionIds[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+            sessionStore.save(sessionIds[i], Fixtures.user(new UUID(random.nextLong(), random.nextLong()).toString(), "user" + i), now, expirationTime);
+        }
+    }
+
+    @Benchmark
+    public UserModel getUserFromSession() throws SessionException {
+        return sessionService.getUserFromSession(sessionIds[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+}
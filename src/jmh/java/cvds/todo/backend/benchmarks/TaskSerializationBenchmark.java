@@ -0,0 +1,42 @@
+package cvds.todo.backend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.services.TaskGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the task lists returned by GET /tasks, with the object mapper
+ * settings Spring Boot uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    private int tasks;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<TaskModel> taskList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(1, tasks);
+        taskList = generator.generateChunk("owner", 42, 0, 0, tasks, LocalDateTime.now());
+        generator.shutdown();
+    }
+
+    @Benchmark
+    public byte[] serializeTasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(taskList);
+    }
+}
@@ -0,0 +1,37 @@
+package cvds.todo.backend.benchmarks;
+
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.services.TaskGenerator;
+import cvds.todo.backend.services.TaskService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskService.isValidTask runs for every created task and every operation of a batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskValidationBenchmark {
+    private final TaskService taskService = new TaskService();
+    private TaskModel task;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(1, 1);
+        task = generator.generateChunk("owner", 42, 0, 0, 1, LocalDateTime.now()).get(0);
+        generator.shutdown();
+    }
+
+    @Benchmark
+    public TaskModel isValidTask() throws AppException {
+        taskService.isValidTask(task);
+        return task;
+    }
+}
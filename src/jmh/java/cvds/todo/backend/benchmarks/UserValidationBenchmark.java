@@ -0,0 +1,81 @@
+package cvds.todo.backend.benchmarks;
+
+import cvds.todo.backend.exceptions.UserException;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.UserService;
+import cvds.todo.backend.services.UsernameCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The validators of UserService are private and run in order from validateUser: username,
+ * email, password, role and, last, the availability query, answered here by a stub repository.
+ * Each benchmark fails at a different one, so the difference between them is the cost of the
+ * next validator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserValidationBenchmark {
+    private UserService userService;
+    private UserModel invalidUsername;
+    private UserModel invalidEmail;
+    private UserModel invalidPassword;
+    private UserModel valid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", Fixtures.userRepository(null));
+        ReflectionTestUtils.setField(userService, "usernameCache", new UsernameCache(new SimpleMeterRegistry(), false, 0, 0, 0));
+
+        valid = this.user("new.user_01", "new.user@example.com", "password123");
+        invalidUsername = this.user("new user!", "new.user@example.com", "password123");
+        invalidEmail = this.user("new.user_01", "new.user@example", "password123");
+        invalidPassword = this.user("new.user_01", "new.user@example.com", "pass word");
+    }
+
+    @Benchmark
+    public Object validateUsername() {
+        return this.validate(invalidUsername);
+    }
+
+    @Benchmark
+    public Object validateUsernameAndEmail() {
+        return this.validate(invalidEmail);
+    }
+
+    @Benchmark
+    public Object validateUsernameEmailAndPassword() {
+        return this.validate(invalidPassword);
+    }
+
+    @Benchmark
+    public Object validateUser() {
+        return this.validate(valid);
+    }
+
+    private Object validate(UserModel user) {
+        try {
+            userService.validateUser(user);
+            return user;
+        } catch (UserException e) {
+            return e;
+        }
+    }
+
+    private UserModel user(String username, String email, String password) {
+        UserModel user = new UserModel();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setRole("ROLE_USER");
+        return user;
+    }
+}
@@ -1,24 +1,39 @@
 package cvds.todo.backend;
 
 
+import cvds.todo.backend.securityConfig.CurrentUserArgumentResolver;
 import cvds.todo.backend.services.AuthorizationService;
 import cvds.todo.backend.services.TaskService;
 import cvds.todo.backend.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Clase de configuración que gestiona la creación de beans para el servicio de tareas
  * y su repositorio.
  */
 @Configuration
+@EnableScheduling
 public class Config implements WebMvcConfigurer {
 
+    @Autowired
+    private CurrentUserArgumentResolver currentUserArgumentResolver;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -28,6 +43,11 @@ public class Config implements WebMvcConfigurer {
                 .allowCredentials(false);
     }
 
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+
     /**
      * Crea y configura el bean de TaskService, que gestiona la lógica de las tareas.
      *
@@ -43,9 +63,25 @@ public class Config implements WebMvcConfigurer {
         return new UserService();
     }
 
+    /**
+     * Único codificador de contraseñas de la aplicación. Cada hash guarda su algoritmo como
+     * prefijo ({bcrypt} o {argon2}), los hashes sin prefijo se leen como bcrypt. Los nuevos
+     * hashes usan todo.passwords.algorithm con los parámetros configurados; en bcrypt cada
+     * punto de strength duplica el tiempo de cada hash.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${todo.passwords.algorithm:bcrypt}") String algorithm,
+                                           @Value("${todo.passwords.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${todo.passwords.argon2.memory-kib:19456}") int argon2MemoryKib,
+                                           @Value("${todo.passwords.argon2.iterations:2}") int argon2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, argon2Iterations));
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 
     @Bean
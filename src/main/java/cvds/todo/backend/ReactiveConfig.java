@@ -0,0 +1,40 @@
+package cvds.todo.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cvds.todo.backend.controller.ReactiveTaskHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * With the reactive profile, serves the task API with WebFlux on the reactive MongoDB driver, on
+ * its own port (todo.reactive.port) next to the Spring MVC API, so both can be compared under the
+ * same load.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveTaskRoutes(ReactiveTaskHandler handler) {
+        return RouterFunctions.route()
+                .path("/tasks", tasks -> tasks
+                        .GET("", handler::getTasks)
+                        .POST("", handler::createTask)
+                        .GET("/{id}", handler::getTaskById)
+                        .PATCH("/{id}", handler::updateTask)
+                        .DELETE("/{id}", handler::deleteTask))
+                .build();
+    }
+
+    @Bean
+    public ReactiveTaskServer reactiveTaskServer(RouterFunction<ServerResponse> reactiveTaskRoutes, ObjectMapper objectMapper,
+                                                 MeterRegistry meterRegistry, @Value("${todo.reactive.port:8082}") int port) {
+        return new ReactiveTaskServer(reactiveTaskRoutes, objectMapper, meterRegistry, port);
+    }
+}
@@ -0,0 +1,70 @@
+package cvds.todo.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactor Netty server of the reactive task API. It runs beside the servlet container and its
+ * lifecycle follows the application context.
+ */
+public class ReactiveTaskServer implements SmartLifecycle {
+    private final WebServer webServer;
+    private final AtomicLong activeRequests = new AtomicLong();
+    private volatile boolean running;
+
+    public ReactiveTaskServer(RouterFunction<ServerResponse> routes, ObjectMapper objectMapper, MeterRegistry meterRegistry, int port) {
+        // The application ObjectMapper, so tasks are written like in the MVC API
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes, strategies);
+
+        // A request is active until its whole body is written, so a stream counts while it streams
+        HttpHandler countedHandler = (request, response) -> {
+            activeRequests.incrementAndGet();
+            return handler.handle(request, response).doFinally(signal -> activeRequests.decrementAndGet());
+        };
+        Gauge.builder("reactive.requests.active", activeRequests, AtomicLong::get)
+                .description("Requests of the reactive task API being handled")
+                .register(meterRegistry);
+
+        this.webServer = new NettyReactiveWebServerFactory(port).getWebServer(countedHandler);
+    }
+
+    @Override
+    public void start() {
+        webServer.start();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        webServer.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return webServer.getPort();
+    }
+}
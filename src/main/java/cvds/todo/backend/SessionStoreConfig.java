@@ -0,0 +1,61 @@
+package cvds.todo.backend;
+
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.SessionModel;
+import cvds.todo.backend.repository.MongoIndexManager;
+import cvds.todo.backend.services.InMemorySessionStore;
+import cvds.todo.backend.services.MappedSessionStore;
+import cvds.todo.backend.services.MongoSessionStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Selects the store used by the session service with the todo.sessions.store property.
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    /**
+     * Default session store, sessions live in the heap with the full user.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.sessions.store", havingValue = "memory", matchIfMissing = true)
+    public SessionStore inMemorySessionStore() {
+        return new InMemorySessionStore();
+    }
+
+    /**
+     * Compact session store outside the heap. When a file is configured the table is memory
+     * mapped and sessions survive a restart.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.sessions.store", havingValue = "mapped")
+    public SessionStore mappedSessionStore(@Value("${todo.sessions.max-active:100000}") int maxActiveSessions,
+                                           @Value("${todo.sessions.store-file:}") String storeFile) throws IOException {
+        if (storeFile.isBlank()) {
+            return MappedSessionStore.offHeap(maxActiveSessions);
+        }
+        return MappedSessionStore.mapped(Path.of(storeFile), maxActiveSessions);
+    }
+
+    /**
+     * Session store shared by every instance through MongoDB, with a local near cache. Its TTL
+     * index is created with the other indexes once the application is ready.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.sessions.store", havingValue = "mongo")
+    public SessionStore mongoSessionStore(MongoTemplate mongoTemplate, MongoIndexManager indexManager, MeterRegistry meterRegistry,
+                                          @Value("${todo.sessions.near-cache-ttl-ms:2000}") long nearCacheTtlMillis,
+                                          @Value("${todo.sessions.near-cache-negative-ttl-ms:500}") long negativeCacheTtlMillis,
+                                          @Value("${todo.sessions.near-cache-size:10000}") int nearCacheMaxSize) {
+        indexManager.manage(SessionModel.class);
+        return new MongoSessionStore(mongoTemplate, meterRegistry, nearCacheTtlMillis, negativeCacheTtlMillis, nearCacheMaxSize);
+    }
+}
@@ -0,0 +1,28 @@
+package cvds.todo.backend.controller;
+
+import cvds.todo.backend.exceptions.AppException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Translates the application exceptions raised outside the controller methods, such as
+ * the session errors of the current user resolution, into the usual error response.
+ */
+@RestControllerAdvice
+public class AppExceptionHandler {
+
+    /**
+     * The error is always written as JSON, also for endpoints that only produce another media
+     * type such as /tasks/stream; otherwise it could not be written and the client would get a 500.
+     */
+    @ExceptionHandler(AppException.class)
+    public ResponseEntity<?> handleAppException(AppException e, HttpServletRequest request) {
+        request.removeAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        ResponseEntity<?> response = e.getResponse();
+        return ResponseEntity.status(response.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+    }
+}
@@ -1,12 +1,11 @@
 package cvds.todo.backend.controller;
 
 import cvds.todo.backend.exceptions.AppException;
-import cvds.todo.backend.exceptions.SessionException;
-import cvds.todo.backend.exceptions.UserException;
 import cvds.todo.backend.model.LoginModel;
 import cvds.todo.backend.model.PublicUserModel;
 import cvds.todo.backend.model.UserModel;
-import cvds.todo.backend.services.SessionService;
+import cvds.todo.backend.securityConfig.CurrentUser;
+import cvds.todo.backend.interfeces.SessionsService;
 import cvds.todo.backend.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,7 +21,7 @@ public class AuthenticationController {
     private UserService userService;
 
     @Autowired
-    private SessionService sessionService;
+    private SessionsService sessionService;
 
     @PostMapping("auth")
     public ResponseEntity<?> loginUser(@RequestBody LoginModel login) {
@@ -38,10 +37,9 @@ public class AuthenticationController {
     }
 
     @GetMapping("auth")
-    public ResponseEntity<?> getUser(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getUser(@CurrentUser UserModel user) {
         try {
-            sessionService.isSessionActive(token);
-            return ResponseEntity.ok().body(new PublicUserModel(sessionService.getUserFromSession(token)));
+            return ResponseEntity.ok().body(new PublicUserModel(user));
         } catch (Exception e) {
             if (e instanceof AppException) {
                 return ((AppException) e).getResponse();
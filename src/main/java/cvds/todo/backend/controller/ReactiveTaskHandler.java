@@ -0,0 +1,191 @@
+package cvds.todo.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.interfeces.ReactiveTasksService;
+import cvds.todo.backend.interfeces.SessionsService;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.UserModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Handlers WebFlux de la API reactiva de tareas (perfil reactive). Atienden las mismas rutas
+ * /tasks que {@link TaskController}, en su propio puerto, sin bloquear hilos: las listas de
+ * tareas se envían como NDJSON, una tarea por línea, a medida que el cliente las consume.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveTaskHandler {
+    private static final DefaultFormattingConversionService CONVERSION_SERVICE = new DefaultFormattingConversionService();
+
+    private final ReactiveTasksService taskService;
+    private final SessionsService sessionService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The MongoDB session store blocks on a near cache miss, the other ones only read memory.
+     */
+    private final boolean blockingSessions;
+
+    @Autowired
+    public ReactiveTaskHandler(ReactiveTasksService taskService, SessionsService sessionService, ObjectMapper objectMapper,
+                               @Value("${todo.sessions.mode:server}") String sessionMode,
+                               @Value("${todo.sessions.store:memory}") String sessionStore) {
+        this.taskService = taskService;
+        this.sessionService = sessionService;
+        this.objectMapper = objectMapper;
+        this.blockingSessions = sessionMode.equals("server") && sessionStore.equals("mongo");
+    }
+
+    /**
+     * Obtener las tareas del usuario como NDJSON. Acepta los mismos filtros, orden, límite y
+     * campos que GET /tasks de {@link TaskController}.
+     *
+     * @return Flujo de las tareas que cumplen los filtros, solo con los campos pedidos.
+     */
+    public Mono<ServerResponse> getTasks(ServerRequest request) {
+        return this.withUser(request, user -> request.bind(TaskQueryModel.class, binder -> binder.setConversionService(CONVERSION_SERVICE))
+                .onErrorMap(BindException.class, e -> new TaskException.TaskInvalidValueException(
+                        "query parameter " + (e.getFieldError() == null ? "" : e.getFieldError().getField())))
+                .flatMap(query -> {
+                    Flux<TaskModel> tasks;
+                    try {
+                        tasks = query.isEmpty() ? taskService.getAllTasks(user) : taskService.findTasks(user, query);
+                    } catch (AppException e) {
+                        return Mono.error(e);
+                    }
+
+                    ServerResponse.BodyBuilder response = ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON);
+                    List<String> fields = query.getFieldList();
+                    if (fields.isEmpty()) {
+                        return response.body(tasks, TaskModel.class);
+                    }
+                    return response.body(tasks.map(task -> this.sparseTask(task, fields)), ObjectNode.class);
+                }));
+    }
+
+    /**
+     * Obtener una tarea por su ID.
+     *
+     * @return La tarea correspondiente al ID, con su versión como ETag.
+     */
+    public Mono<ServerResponse> getTaskById(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return this.withUser(request, user -> taskService.getTaskById(id, user)
+                .flatMap(task -> {
+                    ServerResponse.BodyBuilder response = this.withETag(ServerResponse.ok(), task);
+                    if (task.getUpdatedAt() != null) {
+                        response.lastModified(task.getUpdatedAt().atZone(ZoneId.systemDefault()));
+                    }
+                    return response.bodyValue(task);
+                }));
+    }
+
+    /**
+     * Crear una nueva tarea.
+     *
+     * @return La tarea creada, con estado 201.
+     */
+    public Mono<ServerResponse> createTask(ServerRequest request) {
+        return this.withUser(request, user -> request.bodyToMono(TaskModel.class)
+                .flatMap(task -> taskService.createTask(task, user))
+                .flatMap(task -> {
+                    task.setOwnerIds(null);
+                    return ServerResponse.status(201).bodyValue(task);
+                }));
+    }
+
+    /**
+     * Actualizar una tarea existente por su ID. Solo se modifican los campos enviados y, con
+     * If-Match, solo si la tarea sigue en la versión leída por el cliente (si no, 412).
+     *
+     * @return La tarea actualizada con su nuevo ETag.
+     */
+    public Mono<ServerResponse> updateTask(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return this.withUser(request, user -> {
+            Long expectedVersion;
+            try {
+                expectedVersion = TaskETags.parseIfMatch(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+            } catch (TaskException e) {
+                return Mono.error(e);
+            }
+
+            return request.bodyToMono(TaskModel.class)
+                    .flatMap(task -> taskService.updateTask(id, task, user, expectedVersion))
+                    .flatMap(task -> {
+                        task.setOwnerIds(null);
+                        return this.withETag(ServerResponse.ok(), task).bodyValue(task);
+                    });
+        });
+    }
+
+    /**
+     * Eliminar una tarea por su ID.
+     *
+     * @return La tarea eliminada.
+     */
+    public Mono<ServerResponse> deleteTask(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return this.withUser(request, user -> taskService.deleteTask(id, user)
+                .flatMap(task -> {
+                    task.setOwnerIds(null);
+                    return ServerResponse.ok().bodyValue(task);
+                }));
+    }
+
+    /**
+     * Resuelve el usuario de la sesión enviada en Authorization y responde los errores de la
+     * aplicación con su estado, igual que {@link AppExceptionHandler}.
+     */
+    private Mono<ServerResponse> withUser(ServerRequest request, Function<UserModel, Mono<ServerResponse>> handler) {
+        String sessionToken = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (sessionToken == null) {
+            return ServerResponse.badRequest().bodyValue(Collections.singletonMap("error", "Required header 'Authorization' is not present."));
+        }
+
+        Mono<UserModel> user = Mono.fromCallable(() -> sessionService.getUserFromSession(sessionToken));
+        if (blockingSessions) {
+            user = user.subscribeOn(Schedulers.boundedElastic());
+        }
+        return user.flatMap(handler)
+                .onErrorResume(e -> {
+                    if (e instanceof AppException) {
+                        AppException appException = (AppException) e;
+                        return ServerResponse.status(appException.getStatusCode()).bodyValue(Collections.singletonMap("error", e.getMessage()));
+                    }
+                    return ServerResponse.status(500).bodyValue(Collections.singletonMap("error", "Server error"));
+                });
+    }
+
+    private ObjectNode sparseTask(TaskModel task, List<String> fields) {
+        ObjectNode node = objectMapper.valueToTree(task);
+        node.retain(fields);
+        return node;
+    }
+
+    private ServerResponse.BodyBuilder withETag(ServerResponse.BodyBuilder response, TaskModel task) {
+        String eTag = TaskETags.eTag(task);
+        return eTag == null ? response : response.eTag(eTag);
+    }
+}
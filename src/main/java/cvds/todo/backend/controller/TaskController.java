@@ -1,19 +1,44 @@
 package cvds.todo.backend.controller;
 
 import cvds.todo.backend.exceptions.AppException;
-import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskBatchOperationModel;
+import cvds.todo.backend.model.TaskBatchResultModel;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskJobModel;
 import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskPageModel;
+import cvds.todo.backend.model.TaskQueryModel;
 import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.securityConfig.CurrentUser;
 import cvds.todo.backend.services.AuthorizationService;
-import cvds.todo.backend.services.SessionService;
+import cvds.todo.backend.services.TaskEventService;
+import cvds.todo.backend.services.TaskJobService;
 import cvds.todo.backend.services.TaskService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Controlador REST para la gestión de tareas (TaskModel).
@@ -22,28 +47,48 @@ import java.util.List;
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
+    private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
 
     @Autowired
     private TaskService taskService;
 
     @Autowired
-    private SessionService sessionService;
+    private TaskJobService taskJobService;
+
+    @Autowired
+    private TaskEventService taskEventService;
 
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * Obtener todas las tareas.
+     * Obtener las tareas del usuario. Sin parámetros devuelve todas; con filtros, orden o
+     * límite la consulta se resuelve en la base de datos y solo viajan las tareas pedidas.
      *
-     * @return Lista de todas las tareas.
+     * @param query Filtros (done, priorityMin, priorityMax, deadlineBefore, deadlineAfter,
+     *              createdAfter, updatedAfter), orden (sort=campo o sort=-campo), límite (limit)
+     *              y campos a devolver (fields=id,name,done).
+     * @return Lista de las tareas que cumplen los filtros, solo con los campos pedidos, o 304 si
+     * ninguna tarea cambió desde el ETag enviado en If-None-Match.
      */
     @GetMapping
-    public ResponseEntity<?> getAllTasks(@RequestHeader("Authorization") String sessionToken) {
+    public ResponseEntity<?> getAllTasks(@CurrentUser UserModel userLogged, @ModelAttribute TaskQueryModel query, WebRequest webRequest) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
-            List<TaskModel> tasks = taskService.getAllTasks(userLogged);
-            tasks.forEach(elem -> elem.setOwnerIds(null));
-            return ResponseEntity.ok(tasks);
+            String eTag = "\"" + taskService.getTasksVersion(userLogged) + "\"";
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            if (query.isEmpty()) {
+                return ResponseEntity.ok().eTag(eTag).body(taskService.getAllTasks(userLogged));
+            }
+            List<TaskModel> tasks = taskService.findTasks(userLogged, query);
+            if (query.getFieldList().isEmpty()) {
+                return ResponseEntity.ok().eTag(eTag).body(tasks);
+            }
+            return ResponseEntity.ok().eTag(eTag).body(this.sparseTasks(tasks, query.getFieldList()));
         } catch (Exception e) {
             if (e instanceof AppException) {
                 return ((AppException) e).getResponse();
@@ -53,18 +98,105 @@ public class TaskController {
         }
     }
 
+    /**
+     * Obtener una página de tareas usando un cursor.
+     *
+     * @param size   Cantidad máxima de tareas en la página.
+     * @param cursor Cursor devuelto por la página anterior, vacío para la primera página.
+     * @return La página de tareas y el cursor de la siguiente página.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getTasksPage(@CurrentUser UserModel userLogged,
+                                          @RequestParam(value = "size", defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int size,
+                                          @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            TaskPageModel page = taskService.getTasksPage(userLogged, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
+            }
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
+        }
+    }
+
+    /**
+     * Obtener solo los cambios desde la última sincronización del cliente.
+     *
+     * @param since Marca devuelta por la sincronización anterior (fecha ISO); sin ella se devuelven todas las tareas.
+     * @return Tareas creadas o actualizadas, IDs de tareas eliminadas y la marca para la siguiente sincronización.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@CurrentUser UserModel userLogged,
+                                        @RequestParam(value = "since", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        try {
+            TaskChangesModel changes = taskService.getChanges(userLogged, since);
+            return ResponseEntity.ok(changes);
+        } catch (Exception e) {
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
+            }
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
+        }
+    }
+
+    /**
+     * Recibir los cambios de las tareas del usuario a medida que ocurren (Server-Sent Events).
+     * Si el cliente no lee los eventos a tiempo la conexión se cierra; al reconectar debe
+     * sincronizar con /tasks/changes.
+     *
+     * @return Flujo de eventos created, updated, deleted y resync.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTasks(@CurrentUser UserModel userLogged) throws AppException {
+        return taskEventService.subscribe(userLogged);
+    }
+
+    /**
+     * Exportar todas las tareas escribiendo el JSON a medida que se leen de la base de datos,
+     * sin cargar la lista completa en memoria. Las tareas se leen después de enviar el estado,
+     * así que un error a mitad de la exportación se registra y corta la respuesta sin cerrar el
+     * arreglo, para que el cliente no tome una exportación incompleta por válida.
+     *
+     * @return Arreglo JSON con todas las tareas del usuario.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@CurrentUser UserModel userLogged) {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<TaskModel> tasks = taskService.streamAllTasks(userLogged);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                for (TaskModel task : (Iterable<TaskModel>) tasks::iterator) {
+                    generator.writeObject(task);
+                }
+                generator.writeEndArray();
+            } catch (AppException | RuntimeException e) {
+                logger.warn("Could not export the tasks of user {}: {}", userLogged.getId(), e.getMessage());
+                throw new IOException("Could not export the tasks", e);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     /**
      * Obtener una tarea por su ID.
      *
      * @param id Identificador de la tarea.
-     * @return La tarea correspondiente al ID proporcionado.
+     * @return La tarea correspondiente al ID proporcionado, o 304 si no cambió desde el ETag
+     * (If-None-Match) o la fecha (If-Modified-Since) enviados.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTaskById(@RequestHeader("Authorization") String sessionToken, @PathVariable("id") String id) {
+    public ResponseEntity<?> getTaskById(@CurrentUser UserModel userLogged, @PathVariable("id") String id) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
             TaskModel task = taskService.getTaskById(id, userLogged);
-            return ResponseEntity.ok(task);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(TaskETags.eTag(task));
+            if (task.getUpdatedAt() != null) {
+                response.lastModified(task.getUpdatedAt().atZone(ZoneId.systemDefault()));
+            }
+            return response.body(task);
         } catch (Exception e) {
             if (e instanceof AppException) {
                 return ((AppException) e).getResponse();
@@ -80,9 +212,8 @@ public class TaskController {
      * @return El UUID de la nueva tarea creada.
      */
     @PostMapping
-    public ResponseEntity<?> createTask(@RequestHeader("Authorization") String sessionToken, @RequestBody TaskModel task) {
+    public ResponseEntity<?> createTask(@CurrentUser UserModel userLogged, @RequestBody TaskModel task) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
             TaskModel taskModel = taskService.createTask(task, userLogged);
             taskModel.setOwnerIds(null);
             return ResponseEntity.status(201).body(taskModel);
@@ -95,19 +226,40 @@ public class TaskController {
     }
 
     /**
-     * Actualizar una tarea existente por su ID.
+     * Crear, actualizar y eliminar varias tareas en una sola solicitud. Cada operación se valida
+     * por separado y las válidas se envían juntas a la base de datos.
+     *
+     * @param operations Lista de operaciones {op: create|update|delete, id, task}.
+     * @return El resultado de cada operación, en el mismo orden.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> runBatch(@CurrentUser UserModel userLogged, @RequestBody List<TaskBatchOperationModel> operations) {
+        try {
+            List<TaskBatchResultModel> results = taskService.runBatch(userLogged, operations);
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
+            }
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
+        }
+    }
+
+    /**
+     * Actualizar una tarea existente por su ID. Solo se modifican los campos enviados.
      *
-     * @param id   Identificador de la tarea a actualizar.
-     * @param task Modelo de tarea actualizado.
-     * @return La tarea actualizada.
+     * @param id      Identificador de la tarea a actualizar.
+     * @param task    Modelo de tarea actualizado.
+     * @param ifMatch ETag de la versión leída por el cliente; si la tarea cambió se responde 412.
+     * @return La tarea actualizada con su nuevo ETag.
      */
     @PatchMapping("/{id}")
-    public ResponseEntity<?> updateTask(@RequestHeader("Authorization") String sessionToken, @PathVariable("id") String id, @RequestBody TaskModel task) {
+    public ResponseEntity<?> updateTask(@CurrentUser UserModel userLogged, @PathVariable("id") String id, @RequestBody TaskModel task,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
-            TaskModel updatedTask = taskService.updateTask(id, task, userLogged);
+            TaskModel updatedTask = taskService.updateTask(id, task, userLogged, TaskETags.parseIfMatch(ifMatch));
             updatedTask.setOwnerIds(null);
-            return ResponseEntity.status(200).body(updatedTask);
+            return ResponseEntity.status(200).eTag(TaskETags.eTag(updatedTask)).body(updatedTask);
         } catch (Exception e) {
             if (e instanceof AppException) {
                 return ((AppException) e).getResponse();
@@ -123,9 +275,8 @@ public class TaskController {
      * @return Respuesta sin contenido.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTask(@RequestHeader("Authorization") String sessionToken, @PathVariable("id") String id) {
+    public ResponseEntity<?> deleteTask(@CurrentUser UserModel userLogged, @PathVariable("id") String id) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
             TaskModel deletedTask = taskService.deleteTask(id, userLogged);
             deletedTask.setOwnerIds(null);
             return ResponseEntity.ok(deletedTask);
@@ -138,17 +289,42 @@ public class TaskController {
     }
 
     /**
-     * Eliminar todas las tareas.
+     * Eliminar todas las tareas con una sola operación en la base de datos.
      *
-     * @return Un mensaje indicando cuántas tareas fueron eliminadas exitosamente.
+     * @param async Si es true, la eliminación se hace en segundo plano y se devuelve el trabajo
+     *              para consultar su progreso en /tasks/jobs/{id}.
+     * @return Un mensaje indicando cuántas tareas fueron eliminadas exitosamente, o el trabajo con estado 202.
      */
     @DeleteMapping("/all")
-    public ResponseEntity<?> deleteAllTasks(@RequestHeader("Authorization") String sessionToken) {
+    public ResponseEntity<?> deleteAllTasks(@CurrentUser UserModel userLogged,
+                                            @RequestParam(value = "async", defaultValue = "false") boolean async) {
 
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
-            List<TaskModel> taskDeleted = this.taskService.deleteAllTasks(userLogged);
-            return ResponseEntity.status(200).body(taskDeleted.size() + " Tasks were deleted successfully");
+            if (async) {
+                TaskJobModel job = this.taskService.deleteAllTasksAsync(userLogged);
+                return ResponseEntity.status(202).body(job);
+            }
+            long taskDeleted = this.taskService.deleteAllTasks(userLogged);
+            return ResponseEntity.status(200).body(taskDeleted + " Tasks were deleted successfully");
+        } catch (Exception e) {
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
+            }
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
+        }
+    }
+
+    /**
+     * Consultar el progreso de un trabajo en segundo plano del usuario.
+     *
+     * @param id Identificador del trabajo.
+     * @return El trabajo con su estado y la cantidad de tareas procesadas.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@CurrentUser UserModel userLogged, @PathVariable("id") String id) {
+        try {
+            TaskJobModel job = taskJobService.getJob(id, userLogged);
+            return ResponseEntity.ok(job);
         } catch (Exception e) {
             if (e instanceof AppException) {
                 return ((AppException) e).getResponse();
@@ -163,10 +339,9 @@ public class TaskController {
      * @return Un mensaje indicando cuántas tareas fueron generadas.
      */
     @PostMapping("/gen")
-    public ResponseEntity<?> generateTasks(@RequestHeader("Authorization") String sessionToken) {
+    public ResponseEntity<?> generateTasks(@CurrentUser UserModel userLogged) {
         try {
-            UserModel userLogged = this.getUserFromSessions(sessionToken);
-            authorizationService.adminResource(sessionToken);
+            authorizationService.adminResource(userLogged);
             List<TaskModel> newTasks = taskService.generateExamples(userLogged);
             return ResponseEntity.status(201).body(newTasks.size() + " Tasks were generated");
         } catch (Exception e) {
@@ -177,6 +352,43 @@ public class TaskController {
         }
     }
 
+    /**
+     * Generar tareas sintéticas para pruebas de capacidad, en paralelo y en segundo plano.
+     *
+     * @param count Cantidad de tareas a generar, hasta 10 millones.
+     * @param seed  Semilla de las distribuciones; la misma semilla genera las mismas tareas.
+     * @return El trabajo con estado 202, para consultar su progreso en /tasks/jobs/{id}.
+     */
+    @PostMapping("/gen/bulk")
+    public ResponseEntity<?> generateBulkTasks(@CurrentUser UserModel userLogged,
+                                               @RequestParam("count") long count,
+                                               @RequestParam(value = "seed", defaultValue = "42") long seed) {
+        try {
+            authorizationService.adminResource(userLogged);
+            TaskJobModel job = taskService.generateTasksAsync(userLogged, count, seed);
+            return ResponseEntity.status(202).body(job);
+        } catch (Exception e) {
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
+            }
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
+        }
+    }
+
+    /**
+     * Serializa solo los campos pedidos. Los demás no se leyeron de la base de datos y no deben
+     * aparecer con su valor por defecto (priority 0, done false).
+     */
+    private List<ObjectNode> sparseTasks(List<TaskModel> tasks, List<String> fields) {
+        List<ObjectNode> sparse = new ArrayList<>(tasks.size());
+        for (TaskModel task : tasks) {
+            ObjectNode node = objectMapper.valueToTree(task);
+            node.retain(fields);
+            sparse.add(node);
+        }
+        return sparse;
+    }
+
     /**
      * Endpoint for verify service state
      *
@@ -189,12 +401,5 @@ public class TaskController {
         response.put("message", "The server is up");
         return ResponseEntity.ok(response);
     }
-
-    private UserModel getUserFromSessions(String sessionToken) throws SessionException {
-        if (sessionToken == null || !this.sessionService.isSessionActive(sessionToken)) {
-            return null;
-        }
-        return this.sessionService.getUserFromSession(sessionToken);
-    }
 }
 
@@ -0,0 +1,39 @@
+package cvds.todo.backend.controller;
+
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskModel;
+
+/**
+ * ETag e If-Match de las tareas, compartidos por {@link TaskController} y
+ * {@link ReactiveTaskHandler} para que ambas APIs los interpreten igual.
+ */
+final class TaskETags {
+
+    private TaskETags() {
+    }
+
+    /**
+     * El ETag de una tarea es su versión.
+     */
+    static String eTag(TaskModel task) {
+        return task.getVersion() == null ? null : "\"" + task.getVersion() + "\"";
+    }
+
+    /**
+     * Lee la versión esperada del encabezado If-Match; sin encabezado o con "*" se acepta cualquier versión.
+     */
+    static Long parseIfMatch(String ifMatch) throws TaskException {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new TaskException.TaskInvalidValueException("If-Match header");
+        }
+    }
+}
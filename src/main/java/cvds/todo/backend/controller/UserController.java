@@ -1,7 +1,8 @@
 package cvds.todo.backend.controller;
 
-import cvds.todo.backend.exceptions.UserException;
+import cvds.todo.backend.exceptions.AppException;
 import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.securityConfig.CurrentUser;
 import cvds.todo.backend.services.AuthorizationService;
 import cvds.todo.backend.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,78 +27,77 @@ public class UserController {
             final UserModel modelUser = userService.createUserAsUser(user);
             return ResponseEntity.status(201).body(Collections.singletonMap("message", "The user " + modelUser.getUsername() + " was created successfully."));
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
     }
 
     @PostMapping("/admin")
-    public ResponseEntity<?> createUserAsAdmin(@RequestHeader("authorization") String token, @RequestBody UserModel user, @RequestBody String roles) {
+    public ResponseEntity<?> createUserAsAdmin(@CurrentUser UserModel currentUser, @RequestBody UserModel user, @RequestBody String roles) {
         try {
+            this.authorizationService.adminResource(currentUser);
             final UserModel modelUser = userService.createUserAsAdmin(user, roles);
-            this.authorizationService.adminResource(token);
             return ResponseEntity.status(201).body(Collections.singletonMap("message", "The user " + modelUser.getUsername() + " was created successfully."));
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserById(@RequestHeader("authorization") String token, @PathVariable String id) {
-        System.out.println("!!!!!!!!!");
+    public ResponseEntity<?> getUserById(@CurrentUser UserModel currentUser, @PathVariable String id) {
         try {
-            this.authorizationService.adminResource(token);
+            this.authorizationService.adminResource(currentUser);
             return ResponseEntity.ok(userService.getUserById(id));
 
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllUsers(@RequestHeader("authorization") String token) {
+    public ResponseEntity<?> getAllUsers(@CurrentUser UserModel currentUser) {
         try {
-            this.authorizationService.adminResource(token);
+            this.authorizationService.adminResource(currentUser);
             return ResponseEntity.ok(userService.getAllUsers());
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@RequestHeader("authorization") String token, @PathVariable String id, @RequestBody UserModel user) {
+    public ResponseEntity<?> updateUser(@CurrentUser UserModel currentUser, @PathVariable String id, @RequestBody UserModel user) {
         try {
-            this.authorizationService.adminResource(token);
+            this.authorizationService.adminResource(currentUser);
             return ResponseEntity.ok(userService.updateUser(id, user));
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteUser(@RequestHeader("authorization") String token, @PathVariable String id) {
+    public ResponseEntity<?> deleteUser(@CurrentUser UserModel currentUser, @PathVariable String id) {
         try {
+            this.authorizationService.adminResource(currentUser);
             userService.deleteUser(id);
-            this.authorizationService.adminResource(token);
             return ResponseEntity.ok(Collections.singletonMap("message", "User deleted successfully"));
 
         } catch (Exception e) {
-            if (e instanceof UserException) {
-                return ((UserException) e).getResponse();
+            if (e instanceof AppException) {
+                return ((AppException) e).getResponse();
             }
             return ResponseEntity.status(500).body(Collections.singletonMap("error", "Server error"));
         }
@@ -0,0 +1,12 @@
+package cvds.todo.backend.enums;
+
+/**
+ * Kinds of task change pushed to the clients listening on GET /tasks/stream.
+ * RESYNC tells the client that many tasks changed at once and it must sync with GET /tasks/changes.
+ */
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    RESYNC
+}
@@ -0,0 +1,5 @@
+package cvds.todo.backend.enums;
+
+public enum TaskOperation {
+    CREATE, UPDATE, DELETE;
+}
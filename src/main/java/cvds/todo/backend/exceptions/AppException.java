@@ -18,6 +18,10 @@ public abstract class AppException extends Exception {
         this.statusCode = statusCode;
     }
 
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
     /**
      * Generates a ResponseEntity object with the HTTP status code and message.
      *
@@ -57,4 +57,34 @@ public class TaskException extends AppException {
             super("Task: " + task + ", already exists in the database.", 409);
         }
     }
-}
+
+    /**
+     * TaskJobNotFoundException is thrown when a background job does not exist or belongs to another user.
+     */
+    public static class TaskJobNotFoundException extends TaskException {
+
+        /**
+         * Constructor for TaskJobNotFoundException.
+         *
+         * @param jobId The ID of the job that was not found.
+         */
+        public TaskJobNotFoundException(String jobId) {
+            super("Job: " + jobId + ", not found.", 404);
+        }
+    }
+
+    /**
+     * TaskVersionMismatchException is thrown when a task was changed after the version the client sent.
+     */
+    public static class TaskVersionMismatchException extends TaskException {
+
+        /**
+         * Constructor for TaskVersionMismatchException.
+         *
+         * @param task The task whose version does not match.
+         */
+        public TaskVersionMismatchException(String task) {
+            super("Task: " + task + ", was modified by another request.", 412);
+        }
+    }
+}
\ No newline at end of file
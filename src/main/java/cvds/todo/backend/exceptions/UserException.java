@@ -61,4 +61,34 @@ public class UserException extends AppException {
             super("User with username: " + username + ", already exists in the database.", 409);
         }
     }
+
+    /**
+     * UserEmailConflictException is thrown when the email already belongs to another user.
+     */
+    public static class UserEmailConflictException extends UserException {
+
+        /**
+         * Constructor for UserEmailConflictException.
+         *
+         * @param email The email that caused the conflict.
+         */
+        public UserEmailConflictException(String email) {
+            super("User with email: " + email + ", already exists in the database.", 409);
+        }
+    }
+
+    /**
+     * UserServiceBusyException is thrown when too many passwords are being hashed to accept another one.
+     */
+    public static class UserServiceBusyException extends UserException {
+
+        /**
+         * Constructor for UserServiceBusyException.
+         *
+         * @param operation The password operation that could not be run.
+         */
+        public UserServiceBusyException(String operation) {
+            super("Too many requests, could not " + operation + " the password. Try again later.", 503);
+        }
+    }
 }
\ No newline at end of file
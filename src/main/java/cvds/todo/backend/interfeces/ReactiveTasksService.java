@@ -0,0 +1,69 @@
+package cvds.todo.backend.interfeces;
+
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.UserModel;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link TasksService} for the reactive task API.
+ * Nothing is read or written until the returned publishers are subscribed; errors are
+ * signalled through them as {@link AppException}s.
+ */
+public interface ReactiveTasksService {
+
+    /**
+     * Stream all the tasks of the user from a database cursor, read as the subscriber requests them.
+     *
+     * @param user Owner of the tasks.
+     * @return The tasks of the user.
+     */
+    Flux<TaskModel> getAllTasks(UserModel user);
+
+    /**
+     * Stream the tasks of the user that match every filter of the query, sorted and limited by the database.
+     * The query is checked before anything is read, so an invalid query never starts a stream.
+     *
+     * @param user  Owner of the tasks.
+     * @param query Filters, sort, limit and fields; fields left empty do not filter.
+     * @return The matching tasks.
+     * @throws AppException if a filter, the sort, the limit or the fields are invalid.
+     */
+    Flux<TaskModel> findTasks(UserModel user, TaskQueryModel query) throws AppException;
+
+    /**
+     * Get a task of the user by its ID.
+     *
+     * @param id Identifier of the task.
+     * @return The task, or a TaskNotFoundException.
+     */
+    Mono<TaskModel> getTaskById(String id, UserModel user);
+
+    /**
+     * Create a new task owned by the user.
+     *
+     * @param task Task model to create.
+     * @return The created task, or a TaskInvalidValueException.
+     */
+    Mono<TaskModel> createTask(TaskModel task, UserModel user);
+
+    /**
+     * Update a task of the user in one atomic operation, only if it still has the expected version.
+     *
+     * @param id              Identifier of the task to update.
+     * @param task            Fields to change; empty fields keep their current value.
+     * @param expectedVersion Version the client read, or null to update any version.
+     * @return The updated task, or a TaskNotFoundException or TaskVersionMismatchException.
+     */
+    Mono<TaskModel> updateTask(String id, TaskModel task, UserModel user, Long expectedVersion);
+
+    /**
+     * Delete a task of the user by its ID.
+     *
+     * @param id Identifier of the task to delete.
+     * @return The deleted task, or a TaskNotFoundException.
+     */
+    Mono<TaskModel> deleteTask(String id, UserModel user);
+}
@@ -0,0 +1,103 @@
+package cvds.todo.backend.interfeces;
+
+import cvds.todo.backend.model.UserModel;
+
+/**
+ * Storage SPI behind the session service. Implementations only keep sessions, the
+ * expiration policy and the metrics stay in the session service.
+ */
+public interface SessionStore {
+
+    /**
+     * Stores a new session.
+     *
+     * @param sessionId      The unique identifier for the session.
+     * @param user           The user that owns the session.
+     * @param createdTime    Creation time in epoch milliseconds, kept while the session is renewed.
+     * @param expirationTime Expiration time in epoch milliseconds.
+     * @throws IllegalArgumentException if the user cannot be kept by this store.
+     */
+    void save(String sessionId, UserModel user, long createdTime, long expirationTime);
+
+    /**
+     * Finds a stored session, expired or not.
+     *
+     * @param sessionId The unique identifier for the session.
+     * @return The stored session, or null if it does not exist.
+     */
+    Entry find(String sessionId);
+
+    /**
+     * Moves the expiration of a stored session.
+     *
+     * @param sessionId      The unique identifier for the session.
+     * @param expirationTime New expiration time in epoch milliseconds.
+     * @return True if the session exists and was renewed.
+     */
+    boolean renew(String sessionId, long expirationTime);
+
+    /**
+     * Removes a session.
+     *
+     * @param sessionId The unique identifier for the session.
+     * @return True if the session existed.
+     */
+    boolean remove(String sessionId);
+
+    /**
+     * Removes a session only if it is still expired, so a concurrent renewal is not lost.
+     *
+     * @param sessionId The unique identifier for the session.
+     * @param now       Current time in epoch milliseconds.
+     * @return True if the session was removed.
+     */
+    boolean expire(String sessionId, long now);
+
+    /**
+     * Removes expired sessions.
+     *
+     * @param now Current time in epoch milliseconds.
+     * @return Number of sessions removed.
+     */
+    int removeExpired(long now);
+
+    /**
+     * Evicts sessions until the store holds at most the given number of sessions.
+     *
+     * @param maxSessions Maximum number of sessions to keep.
+     * @return Number of sessions evicted.
+     */
+    int evictOverflow(int maxSessions);
+
+    /**
+     * @return Number of sessions stored.
+     */
+    long size();
+
+    /**
+     * A stored session. Compact stores may only keep the identity and the role of the user.
+     */
+    final class Entry {
+        private final UserModel user;
+        private final long createdTime;
+        private final long expirationTime;
+
+        public Entry(UserModel user, long createdTime, long expirationTime) {
+            this.user = user;
+            this.createdTime = createdTime;
+            this.expirationTime = expirationTime;
+        }
+
+        public UserModel getUser() {
+            return user;
+        }
+
+        public long getCreatedTime() {
+            return createdTime;
+        }
+
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+    }
+}
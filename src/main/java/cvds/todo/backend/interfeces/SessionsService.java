@@ -40,6 +40,13 @@ public interface SessionsService {
      */
     boolean isSessionActive(String sessionId) throws SessionException;
 
+    /**
+     * Ends a session so it can no longer be used.
+     *
+     * @param sessionId The unique identifier for the session to invalidate.
+     */
+    void invalidateSession(String sessionId) throws SessionException;
+
     /**
      * Removes all expired sessions from the system.
      */
@@ -1,10 +1,19 @@
 package cvds.todo.backend.interfeces;
 
 import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.model.TaskBatchOperationModel;
+import cvds.todo.backend.model.TaskBatchResultModel;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskJobModel;
 import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskPageModel;
+import cvds.todo.backend.model.TaskQueryModel;
 import cvds.todo.backend.model.UserModel;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * Interface for task management services.
@@ -20,6 +29,66 @@ public interface TasksService {
      */
     List<TaskModel> getAllTasks(UserModel user) throws AppException;
 
+    /**
+     * Get one page of tasks using keyset pagination over the task ID.
+     *
+     * @param user   Owner of the tasks.
+     * @param cursor Opaque cursor returned by the previous page, or null for the first page.
+     * @param size   Maximum number of tasks in the page.
+     * @return The page of tasks and the cursor of the next page, if any.
+     * @throws AppException if the cursor or the size are invalid.
+     */
+    TaskPageModel getTasksPage(UserModel user, String cursor, int size) throws AppException;
+
+    /**
+     * Open a stream over all the tasks of the user, backed by a database cursor.
+     * The caller must close the stream to release the cursor.
+     *
+     * @param user Owner of the tasks.
+     * @return Lazy stream of tasks.
+     * @throws AppException if an error occurs while opening the cursor.
+     */
+    Stream<TaskModel> streamAllTasks(UserModel user) throws AppException;
+
+    /**
+     * Find the tasks of the user that match every filter of the query, sorted and limited by the database.
+     *
+     * @param user  Owner of the tasks.
+     * @param query Filters, sort and limit; fields left empty do not filter.
+     * @return The matching tasks.
+     * @throws AppException if a filter, the sort or the limit are invalid.
+     */
+    List<TaskModel> findTasks(UserModel user, TaskQueryModel query) throws AppException;
+
+    /**
+     * Get a version of all the tasks of the user that changes whenever a task is created, updated
+     * or deleted, computed without loading the tasks.
+     *
+     * @return Opaque version, usable as the ETag of the task list.
+     * @throws AppException if an error occurs while computing the version.
+     */
+    String getTasksVersion(UserModel user) throws AppException;
+
+    /**
+     * Get the tasks created or updated and the IDs of the tasks deleted after a watermark.
+     *
+     * @param since Watermark returned by the previous sync, or null to get every task.
+     * @return The changes and the watermark to send in the next sync.
+     * @throws AppException if an error occurs while reading the changes.
+     */
+    TaskChangesModel getChanges(UserModel user, LocalDateTime since) throws AppException;
+
+    /**
+     * Run a list of create, update and delete operations on the tasks of the user with a single
+     * unordered bulk write. Invalid operations are reported and skipped, the others still run.
+     *
+     * @param user       Owner of the tasks.
+     * @param operations Operations to run.
+     * @return One result per operation, in the same order.
+     * @throws AppException if the batch is empty or too large.
+     */
+    List<TaskBatchResultModel> runBatch(UserModel user, List<TaskBatchOperationModel> operations) throws AppException;
+
     /**
      * Get a task by its ID.
      *
@@ -48,6 +117,17 @@ public interface TasksService {
      */
     TaskModel updateTask(String id, TaskModel task, UserModel user) throws AppException;
 
+    /**
+     * Update an existing task of the user in one atomic operation, only if it still has the expected version.
+     *
+     * @param id              Identifier of the task to update.
+     * @param task            Fields to change; empty fields keep their current value.
+     * @param expectedVersion Version the client read, or null to update any version.
+     * @return The updated task with its new version.
+     * @throws AppException if the task does not exist or its version is not the expected one.
+     */
+    TaskModel updateTask(String id, TaskModel task, UserModel user, Long expectedVersion) throws AppException;
+
     /**
      * Delete a task by its ID.
      *
@@ -66,12 +146,40 @@ public interface TasksService {
     List<TaskModel> generateExamples(UserModel user) throws AppException;
 
     /**
-     * Delete all tasks.
+     * Generate synthetic tasks for capacity tests, in parallel and inserted in chunks.
+     * The same seed always generates the same tasks.
+     *
+     * @param count    Number of tasks to generate, up to ten million.
+     * @param seed     Seed of the random distributions.
+     * @param progress Receives the number of tasks of every chunk inserted.
+     * @return Number of generated tasks.
+     * @throws AppException if the count is out of range or the tasks cannot be inserted.
+     */
+    long generateTasks(UserModel user, long count, long seed, LongConsumer progress) throws AppException;
+
+    /**
+     * Generate synthetic tasks in background, reporting the progress in the job.
+     *
+     * @return The job generating the tasks.
+     * @throws AppException if the count is out of range or the job cannot be started.
+     */
+    TaskJobModel generateTasksAsync(UserModel user, long count, long seed) throws AppException;
+
+    /**
+     * Delete all tasks of the user in the database, without loading them.
      *
-     * @return List of all deleted tasks.
+     * @return Number of deleted tasks.
      * @throws AppException if an error occurs while deleting the tasks.
      */
-    List<TaskModel> deleteAllTasks(UserModel user) throws AppException;
+    long deleteAllTasks(UserModel user) throws AppException;
+
+    /**
+     * Delete all tasks of the user in background, in chunks, reporting the progress in the job.
+     *
+     * @return The job deleting the tasks.
+     * @throws AppException if the job cannot be started.
+     */
+    TaskJobModel deleteAllTasksAsync(UserModel user) throws AppException;
 
     /**
      * Validate a task before insert in database.
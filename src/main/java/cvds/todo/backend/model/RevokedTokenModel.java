@@ -0,0 +1,57 @@
+package cvds.todo.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A logged out signed token, shared so every instance rejects it. The id is the canonical
+ * encoding of the token MAC. MongoDB deletes it once the token itself has expired; instances
+ * read the new ones by revokedAt.
+ */
+@Document(collection = "revoked_tokens")
+public class RevokedTokenModel {
+    @Id
+    private String id;
+
+    @Indexed(name = "revoked_at")
+    private Instant revokedAt;
+
+    @Indexed(name = "revoked_token_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public RevokedTokenModel() {
+    }
+
+    public RevokedTokenModel(String id, Instant revokedAt, Instant expiresAt) {
+        this.id = id;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,106 @@
+package cvds.todo.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A session shared by every instance. MongoDB deletes it once expiresAt has passed; the TTL
+ * monitor runs about once a minute, so readers still check the expiration themselves.
+ */
+@Document(collection = "sessions")
+public class SessionModel {
+    @Id
+    private String id;
+    private String userId;
+    private String username;
+    private String email;
+    private String role;
+    private Instant createdAt;
+
+    @Indexed(name = "session_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public SessionModel() {
+    }
+
+    public SessionModel(String id, UserModel user, Instant createdAt, Instant expiresAt) {
+        this.id = id;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.role = user.getRole();
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Rebuilds the user of the session, without the password hash which is never stored here.
+     */
+    public UserModel toUser() {
+        UserModel user = new UserModel();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setRole(role);
+        return user;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
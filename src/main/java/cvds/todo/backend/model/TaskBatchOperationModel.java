@@ -0,0 +1,44 @@
+package cvds.todo.backend.model;
+
+/**
+ * One operation of a task batch. create takes the task, update takes the ID and the fields to
+ * change in the task, delete only takes the ID.
+ */
+public class TaskBatchOperationModel {
+    private String op;
+    private String id;
+    private TaskModel task;
+
+    public TaskBatchOperationModel() {
+    }
+
+    public TaskBatchOperationModel(String op, String id, TaskModel task) {
+        this.op = op;
+        this.id = id;
+        this.task = task;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public TaskModel getTask() {
+        return task;
+    }
+
+    public void setTask(TaskModel task) {
+        this.task = task;
+    }
+}
@@ -0,0 +1,64 @@
+package cvds.todo.backend.model;
+
+/**
+ * Result of one operation of a task batch, in the same position as the operation. The status
+ * follows the code the single task endpoint would have answered.
+ */
+public class TaskBatchResultModel {
+    private int index;
+    private String op;
+    private String id;
+    private int status;
+    private String error;
+
+    public TaskBatchResultModel() {
+    }
+
+    public TaskBatchResultModel(int index, String op, String id, int status, String error) {
+        this.index = index;
+        this.op = op;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
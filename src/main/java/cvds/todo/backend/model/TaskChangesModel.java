@@ -0,0 +1,59 @@
+package cvds.todo.backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tasks created or updated and IDs of tasks deleted since the watermark sent by a client.
+ * The watermark must be sent back in the next sync; changes near it may be sent twice, so
+ * clients apply them by ID. With fullResync the client must replace its tasks with the
+ * returned ones, because deletions older than the tombstones or a delete all happened.
+ */
+public class TaskChangesModel {
+    private List<TaskModel> tasks;
+    private List<String> deletedIds;
+    private LocalDateTime watermark;
+    private boolean fullResync;
+
+    public TaskChangesModel() {
+    }
+
+    public TaskChangesModel(List<TaskModel> tasks, List<String> deletedIds, LocalDateTime watermark, boolean fullResync) {
+        this.tasks = tasks;
+        this.deletedIds = deletedIds;
+        this.watermark = watermark;
+        this.fullResync = fullResync;
+    }
+
+    public List<TaskModel> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskModel> tasks) {
+        this.tasks = tasks;
+    }
+
+    public List<String> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<String> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isFullResync() {
+        return fullResync;
+    }
+
+    public void setFullResync(boolean fullResync) {
+        this.fullResync = fullResync;
+    }
+}
@@ -0,0 +1,42 @@
+package cvds.todo.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import cvds.todo.backend.enums.TaskEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of a task pushed over GET /tasks/stream. The task is absent for deletions and resyncs.
+ */
+public class TaskEventModel {
+    private final TaskEventType type;
+    private final String taskId;
+
+    @JsonIgnoreProperties("ownerIds")
+    private final TaskModel task;
+
+    private final LocalDateTime at;
+
+    public TaskEventModel(TaskEventType type, String taskId, TaskModel task, LocalDateTime at) {
+        this.type = type;
+        this.taskId = taskId;
+        this.task = task;
+        this.at = at;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public TaskModel getTask() {
+        return task;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+}
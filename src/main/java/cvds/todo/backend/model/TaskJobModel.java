@@ -0,0 +1,91 @@
+package cvds.todo.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import cvds.todo.backend.enums.JobStatus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A long running task operation executed in background. The job is updated by the threads
+ * running it, possibly several at once for the processed count, and clients poll it to follow
+ * the progress.
+ */
+public class TaskJobModel {
+    private final String id;
+    private final String type;
+    private final String ownerId;
+    private final LocalDateTime createdAt;
+    private volatile JobStatus status = JobStatus.RUNNING;
+    private volatile long total = -1;
+    private final LongAdder processed = new LongAdder();
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    public TaskJobModel(String id, String type, String ownerId) {
+        this.id = id;
+        this.type = type;
+        this.ownerId = ownerId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    @JsonIgnore
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * @return Number of items the job will process, or -1 while it is not known yet.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public void addProcessed(long processed) {
+        this.processed.add(processed);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -1,6 +1,9 @@
 package cvds.todo.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -9,7 +12,19 @@ import java.util.List;
 
 import java.util.Objects;
 
+/**
+ * Every query on tasks is scoped by owner, so each index starts with the multikey ownerIds
+ * followed by the field of one of the query shapes declared in TaskRepository.
+ */
 @Document(collection = "tasks")
+@CompoundIndexes({
+        @CompoundIndex(name = "owner_id", def = "{'ownerIds': 1, '_id': 1}"),
+        @CompoundIndex(name = "owner_done", def = "{'ownerIds': 1, 'done': 1}"),
+        @CompoundIndex(name = "owner_priority", def = "{'ownerIds': 1, 'priority': 1}"),
+        @CompoundIndex(name = "owner_deadline", def = "{'ownerIds': 1, 'deadline': 1}"),
+        @CompoundIndex(name = "owner_created_at", def = "{'ownerIds': 1, 'createdAt': 1}"),
+        @CompoundIndex(name = "owner_updated_at", def = "{'ownerIds': 1, 'updatedAt': 1}")
+})
 public class TaskModel {
     @Id
     private String id;
@@ -22,6 +37,13 @@ public class TaskModel {
     private LocalDateTime updatedAt;
     private boolean done;
 
+    /**
+     * Incremented on every update; sent to clients as the ETag of the task so a PATCH with
+     * If-Match fails instead of overwriting a change it has not seen.
+     */
+    @Version
+    private Long version;
+
     private List<String> ownerIds;
 
 
@@ -104,6 +126,14 @@ public class TaskModel {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<String> getOwnerIds() {
         return ownerIds;
     }
@@ -0,0 +1,40 @@
+package cvds.todo.backend.model;
+
+import java.util.List;
+
+/**
+ * One page of tasks returned by the cursor based pagination endpoint.
+ * The cursor is opaque for clients, it must be sent back as is to get the next page.
+ */
+public class TaskPageModel {
+    private List<TaskModel> tasks;
+    private String nextCursor;
+
+    public TaskPageModel() {
+    }
+
+    public TaskPageModel(List<TaskModel> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TaskModel> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskModel> tasks) {
+        this.tasks = tasks;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,143 @@
+package cvds.todo.backend.model;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Filters, sort, limit and projection of a task query, bound from the query string of GET /tasks.
+ * Every field is optional; dates use the ISO format, e.g. 2024-10-01T00:00:00.
+ * The sort is a field name, prefixed with "-" for descending order, and fields is a comma
+ * separated list of the task fields to return.
+ */
+public class TaskQueryModel {
+    private Boolean done;
+    private Integer priorityMin;
+    private Integer priorityMax;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime deadlineBefore;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime deadlineAfter;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdAfter;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime updatedAfter;
+
+    private String sort;
+    private Integer limit;
+    private String fields;
+
+    public TaskQueryModel() {
+    }
+
+    /**
+     * @return True if no filter, sort, limit nor fields were given, so every task of the user is requested.
+     */
+    public boolean isEmpty() {
+        return done == null && priorityMin == null && priorityMax == null
+                && deadlineBefore == null && deadlineAfter == null
+                && createdAfter == null && updatedAfter == null
+                && (sort == null || sort.isEmpty()) && limit == null
+                && this.getFieldList().isEmpty();
+    }
+
+    /**
+     * @return The requested fields, empty when every field is requested.
+     */
+    public List<String> getFieldList() {
+        if (fields == null || fields.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public Boolean getDone() {
+        return done;
+    }
+
+    public void setDone(Boolean done) {
+        this.done = done;
+    }
+
+    public Integer getPriorityMin() {
+        return priorityMin;
+    }
+
+    public void setPriorityMin(Integer priorityMin) {
+        this.priorityMin = priorityMin;
+    }
+
+    public Integer getPriorityMax() {
+        return priorityMax;
+    }
+
+    public void setPriorityMax(Integer priorityMax) {
+        this.priorityMax = priorityMax;
+    }
+
+    public LocalDateTime getDeadlineBefore() {
+        return deadlineBefore;
+    }
+
+    public void setDeadlineBefore(LocalDateTime deadlineBefore) {
+        this.deadlineBefore = deadlineBefore;
+    }
+
+    public LocalDateTime getDeadlineAfter() {
+        return deadlineAfter;
+    }
+
+    public void setDeadlineAfter(LocalDateTime deadlineAfter) {
+        this.deadlineAfter = deadlineAfter;
+    }
+
+    public LocalDateTime getCreatedAfter() {
+        return createdAfter;
+    }
+
+    public void setCreatedAfter(LocalDateTime createdAfter) {
+        this.createdAfter = createdAfter;
+    }
+
+    public LocalDateTime getUpdatedAfter() {
+        return updatedAfter;
+    }
+
+    public void setUpdatedAfter(LocalDateTime updatedAfter) {
+        this.updatedAfter = updatedAfter;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public String getFields() {
+        return fields;
+    }
+
+    public void setFields(String fields) {
+        this.fields = fields;
+    }
+}
@@ -0,0 +1,80 @@
+package cvds.todo.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace of a deleted task kept so clients syncing with GET /tasks/changes learn about the
+ * deletion. A tombstone without taskId marks that every task of the owner was deleted at once.
+ * MongoDB removes tombstones RETENTION_DAYS after the deletion; clients that last synced
+ * before that must download every task again.
+ */
+@Document(collection = "task_tombstones")
+@CompoundIndex(name = "owner_deleted_at", def = "{'ownerId': 1, 'deletedAt': 1}")
+public class TaskTombstoneModel {
+    public static final int RETENTION_DAYS = 30;
+
+    @Id
+    private String id;
+    private String ownerId;
+    private String taskId;
+
+    @Indexed(name = "tombstone_ttl", expireAfterSeconds = RETENTION_DAYS * 24 * 60 * 60)
+    private LocalDateTime deletedAt;
+
+    public TaskTombstoneModel() {
+    }
+
+    public TaskTombstoneModel(String ownerId, String taskId, LocalDateTime deletedAt) {
+        this.ownerId = ownerId;
+        this.taskId = taskId;
+        this.deletedAt = deletedAt;
+    }
+
+    /**
+     * @return A tombstone telling that every task of the owner was deleted.
+     */
+    public static TaskTombstoneModel reset(String ownerId, LocalDateTime deletedAt) {
+        return new TaskTombstoneModel(ownerId, null, deletedAt);
+    }
+
+    public boolean isReset() {
+        return taskId == null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
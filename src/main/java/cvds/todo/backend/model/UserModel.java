@@ -1,13 +1,22 @@
 package cvds.todo.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * Usernames and emails are unique, enforced by the database so two concurrent registrations
+ * cannot both succeed.
+ */
 @Document(collection = "users")
 public class UserModel {
     @Id
     private String id;
+
+    @Indexed(name = "username_unique", unique = true)
     private String username;
+
+    @Indexed(name = "email_unique", unique = true)
     private String email;
     private String password;
     private String role;
@@ -0,0 +1,301 @@
+package cvds.todo.backend.repository;
+
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import cvds.todo.backend.model.UserModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Creates the indexes declared on the documents and checks that every derived query of the
+ * repositories has an index whose prefix covers its filter fields.
+ * Auto index creation is disabled in Spring Data, so this is where repository documents get
+ * their indexes, and also documents without a repository registered with {@link #manage(Class)},
+ * such as the sessions of the MongoDB session store.
+ */
+@Component
+public class MongoIndexManager {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    /**
+     * Documents whose indexes are managed, with the repository that declares their query shapes.
+     */
+    static final Map<Class<?>, Class<?>> MANAGED_REPOSITORIES = Map.of(
+            TaskModel.class, TaskRepository.class,
+            TaskTombstoneModel.class, TaskTombstoneRepository.class,
+            UserModel.class, UserRepository.class
+    );
+
+    /**
+     * Documents without a repository whose declared indexes are created with the others.
+     */
+    private final Set<Class<?>> managedDocuments = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${todo.mongo.indexes.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${todo.mongo.indexes.explain-on-startup:false}")
+    private boolean explainOnStartup;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Builds the indexes once the application is ready. It runs in its own thread so an
+     * unreachable database does not hold the startup of the web server.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::initialize, "mongo-index-manager");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Adds a document without a repository, its indexes are created at startup with the others.
+     *
+     * @param document Document whose @Indexed and @CompoundIndex declarations are created.
+     */
+    public void manage(Class<?> document) {
+        managedDocuments.add(document);
+    }
+
+    void initialize() {
+        try {
+            this.ensureIndexes();
+            List<String> uncovered = this.verifyQueryCoverage();
+            if (!uncovered.isEmpty()) {
+                logger.warn("Repository queries without a covering index: {}", uncovered);
+            }
+            if (explainOnStartup) {
+                List<String> scans = this.findCollectionScans();
+                if (!scans.isEmpty()) {
+                    logger.warn("Repository queries planned as COLLSCAN: {}", scans);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not create the MongoDB indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates every index declared with @Indexed or @CompoundIndex on the managed documents.
+     * Creating an index that already exists with the same definition is a no-op. An index that
+     * cannot be built, such as a unique index over duplicated values, is logged and skipped so
+     * the other indexes are still created.
+     */
+    public void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        Set<Class<?>> documents = new LinkedHashSet<>(MANAGED_REPOSITORIES.keySet());
+        synchronized (managedDocuments) {
+            documents.addAll(managedDocuments);
+        }
+        for (Class<?> document : documents) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(document);
+            for (IndexDefinition index : resolver.resolveIndexFor(document)) {
+                try {
+                    indexOperations.ensureIndex(index);
+                } catch (DataAccessException e) {
+                    logger.warn("Could not create the index {} of {}: {}", index.getIndexOptions().get("name"),
+                            document.getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the query shapes of the repositories against the indexes present in the database.
+     *
+     * @return The repository methods that no index covers.
+     */
+    public List<String> verifyQueryCoverage() {
+        List<String> uncovered = new ArrayList<>();
+        var mappingContext = mongoTemplate.getConverter().getMappingContext();
+
+        for (Map.Entry<Class<?>, Class<?>> entry : MANAGED_REPOSITORIES.entrySet()) {
+            List<List<String>> indexes = mongoTemplate.indexOps(entry.getKey()).getIndexInfo().stream()
+                    .map(info -> info.getIndexFields().stream().map(IndexField::getKey).toList())
+                    .toList();
+
+            for (QueryShape shape : queryShapes(entry.getValue(), entry.getKey(), mappingContext)) {
+                if (!isCovered(shape.getFields(), indexes)) {
+                    uncovered.add(shape.getMethod());
+                }
+            }
+        }
+        return uncovered;
+    }
+
+    /**
+     * Runs the query planner of the database over a sample of every query shape.
+     *
+     * @return The repository methods whose winning plan contains a collection scan.
+     */
+    public List<String> findCollectionScans() {
+        List<String> scans = new ArrayList<>();
+        var mappingContext = mongoTemplate.getConverter().getMappingContext();
+
+        for (Map.Entry<Class<?>, Class<?>> entry : MANAGED_REPOSITORIES.entrySet()) {
+            String collection = mongoTemplate.getCollectionName(entry.getKey());
+            for (QueryShape shape : queryShapes(entry.getValue(), entry.getKey(), mappingContext)) {
+                Document command = new Document("explain", new Document("find", collection).append("filter", shape.getSampleFilter()))
+                        .append("verbosity", "queryPlanner");
+                if (hasCollectionScan(mongoTemplate.executeCommand(command))) {
+                    scans.add(shape.getMethod());
+                }
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Derives the filter fields of every query method declared in a repository, the same way
+     * Spring Data parses the method name.
+     *
+     * @param repository     Repository interface.
+     * @param document       Document handled by the repository.
+     * @param mappingContext Mapping context used to translate properties to stored field names.
+     * @return One shape per repository method and "Or" branch.
+     */
+    public static List<QueryShape> queryShapes(Class<?> repository, Class<?> document,
+                                               MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext) {
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(document);
+        List<QueryShape> shapes = new ArrayList<>();
+
+        for (Method method : repository.getDeclaredMethods()) {
+            if (method.isDefault() || method.isSynthetic()) {
+                continue;
+            }
+            PartTree tree = new PartTree(method.getName(), document);
+            for (PartTree.OrPart orPart : tree) {
+                List<String> fields = new ArrayList<>();
+                Document sample = new Document();
+                for (Part part : orPart) {
+                    MongoPersistentProperty property = entity.getRequiredPersistentProperty(part.getProperty().getSegment());
+                    fields.add(property.getFieldName());
+                    sample.append(property.getFieldName(), sampleValue(property));
+                }
+                shapes.add(new QueryShape(method.getName(), fields, sample));
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * A query is covered when its filter fields are exactly the leading fields of an index,
+     * in any order, so the planner can bound the scan with all of them.
+     */
+    public static boolean isCovered(Collection<String> fields, List<List<String>> indexes) {
+        for (List<String> index : indexes) {
+            if (index.size() >= fields.size()
+                    && new HashSet<>(index.subList(0, fields.size())).equals(new HashSet<>(fields))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for a COLLSCAN stage in the winning plan of an explain result.
+     */
+    public static boolean hasCollectionScan(Document explain) {
+        Object queryPlanner = explain.get("queryPlanner");
+        if (!(queryPlanner instanceof Document)) {
+            return false;
+        }
+        return containsStage(((Document) queryPlanner).get("winningPlan"), "COLLSCAN");
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            for (Object value : document.values()) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Object sampleValue(MongoPersistentProperty property) {
+        Class<?> type = property.isCollectionLike() ? property.getActualType() : property.getType();
+        if (type == boolean.class || type == Boolean.class) {
+            return true;
+        }
+        if (Number.class.isAssignableFrom(type) || type.isPrimitive()) {
+            return 1;
+        }
+        if (type == LocalDateTime.class || type == LocalDate.class || type == Date.class) {
+            return new Date();
+        }
+        return "sample";
+    }
+
+    /**
+     * Filter fields of one repository query, with a sample filter that can be explained.
+     */
+    public static class QueryShape {
+        private final String method;
+        private final List<String> fields;
+        private final Document sampleFilter;
+
+        QueryShape(String method, List<String> fields, Document sampleFilter) {
+            this.method = method;
+            this.fields = fields;
+            this.sampleFilter = sampleFilter;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public List<String> getFields() {
+            return fields;
+        }
+
+        public Document getSampleFilter() {
+            return sampleFilter;
+        }
+
+        @Override
+        public String toString() {
+            return method + fields;
+        }
+    }
+}
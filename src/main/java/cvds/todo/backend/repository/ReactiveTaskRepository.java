@@ -0,0 +1,26 @@
+package cvds.todo.backend.repository;
+
+import cvds.todo.backend.model.TaskModel;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TaskRepository}, used by the reactive task API.
+ */
+public interface ReactiveTaskRepository extends ReactiveMongoRepository<TaskModel, String> {
+    int STREAM_BATCH_SIZE = 500;
+
+    /**
+     * The cursor is read in batches as the subscriber requests tasks, so a slow client keeps at
+     * most a batch in memory instead of every task of the user.
+     */
+    @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+    @Query(fields = "{ 'ownerIds': 0 }")
+    Flux<TaskModel> findByOwnerIdsContaining(String ownerId);
+
+    @Query(fields = "{ 'ownerIds': 0 }")
+    Mono<TaskModel> findFirstByOwnerIdsContainingAndId(String ownerId, String id);
+}
@@ -2,14 +2,28 @@ package cvds.todo.backend.repository;
 
 import cvds.todo.backend.model.TaskModel;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskRepository extends MongoRepository<TaskModel, String> {
+    /**
+     * The owners are never returned to clients, so they are not read from the database.
+     */
+    @Query(fields = "{ 'ownerIds': 0 }")
     List<TaskModel> findByOwnerIdsContaining(String ownerId);
+
+    @Query(fields = "{ 'ownerIds': 0 }")
     TaskModel findFirstByOwnerIdsContainingAndId(String ownerId, String id);
-    TaskModel deleteByIdAndOwnerIdsContaining(String ownerId, String id);
+    TaskModel deleteByIdAndOwnerIdsContaining(String id, String ownerId);
+
+    /**
+     * Deletes every task of the owner with a single deleteMany, without loading them.
+     *
+     * @return Number of tasks deleted.
+     */
+    long deleteByOwnerIdsContaining(String ownerId);
 
 
     List<TaskModel> findByOwnerIdsContainingAndDoneTrue(String ownerId);
@@ -18,5 +32,7 @@ public interface TaskRepository extends MongoRepository<TaskModel, String> {
     List<TaskModel> findByOwnerIdsContainingAndDeadlineBefore(String ownerId, LocalDateTime deadline);
     List<TaskModel> findByOwnerIdsContainingAndDeadlineAfter(String ownerId, LocalDateTime deadline);
     List<TaskModel> findByOwnerIdsContainingAndCreatedAtAfter(String ownerId, LocalDateTime createdAt);
+
+    @Query(fields = "{ 'ownerIds': 0 }")
     List<TaskModel> findByOwnerIdsContainingAndUpdatedAtAfter(String ownerId, LocalDateTime updatedAt);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package cvds.todo.backend.repository;
+
+import cvds.todo.backend.model.TaskTombstoneModel;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TaskTombstoneRepository extends MongoRepository<TaskTombstoneModel, String> {
+    List<TaskTombstoneModel> findByOwnerIdAndDeletedAtAfter(String ownerId, LocalDateTime deletedAt);
+}
@@ -7,4 +7,9 @@ import org.springframework.stereotype.Repository;
 public interface UserRepository extends MongoRepository<UserModel, String> {
     UserModel findByUsername(String username);
     UserModel findByEmail(String email);
+
+    /**
+     * Checks both unique fields of a new user in a single $or query.
+     */
+    UserModel findFirstByUsernameOrEmail(String username, String email);
 }
\ No newline at end of file
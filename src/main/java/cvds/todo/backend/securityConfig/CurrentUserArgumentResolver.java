@@ -0,0 +1,51 @@
+package cvds.todo.backend.securityConfig;
+
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.interfeces.SessionsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves parameters annotated with {@link CurrentUser}. The user is looked up in the
+ * session service only the first time, then kept as a request attribute so the rest of the
+ * request reuses it.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    public static final String CURRENT_USER_ATTRIBUTE = CurrentUser.class.getName();
+
+    @Autowired
+    private SessionsService sessionService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && UserModel.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        Object resolved = webRequest.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof UserModel) {
+            return resolved;
+        }
+
+        String sessionToken = webRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        if (sessionToken == null) {
+            throw new MissingRequestHeaderException(HttpHeaders.AUTHORIZATION, parameter);
+        }
+
+        UserModel user = sessionService.getUserFromSession(sessionToken);
+        webRequest.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+}
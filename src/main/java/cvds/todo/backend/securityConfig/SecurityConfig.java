@@ -1,9 +1,16 @@
 package cvds.todo.backend.securityConfig;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -15,7 +22,8 @@ import java.util.List;
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
-
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final String ACTUATOR_ROLE = "ACTUATOR";
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -26,6 +34,8 @@ public class SecurityConfig {
                         .requestMatchers("/auth").permitAll()
                         .requestMatchers("/users").permitAll()
                         .requestMatchers("/users/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole(ACTUATOR_ROLE)
                         .anyRequest().authenticated()
                 )
                 .httpBasic();
@@ -33,6 +43,22 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * HTTP basic user of the actuator endpoints other than health, from spring.security.user. The
+     * password is hashed with the application encoder, which does not read plain text passwords.
+     */
+    @Bean
+    public UserDetailsService actuatorUserDetailsService(SecurityProperties properties, PasswordEncoder passwordEncoder) {
+        SecurityProperties.User user = properties.getUser();
+        if (user.isPasswordGenerated()) {
+            logger.warn("spring.security.user.password is not set, the actuator password of this run is: {}", user.getPassword());
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(user.getName())
+                .password(passwordEncoder.encode(user.getPassword()))
+                .roles(ACTUATOR_ROLE)
+                .build());
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         return new CorsFilter(corsConfigurationSource());
@@ -2,6 +2,7 @@ package cvds.todo.backend.services;
 
 import cvds.todo.backend.enums.Role;
 import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.interfeces.SessionsService;
 import cvds.todo.backend.model.UserModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -9,11 +10,17 @@ import org.springframework.stereotype.Service;
 @Service
 public class AuthorizationService {
     @Autowired
-    SessionService sessionService;
+    SessionsService sessionService;
 
     public void adminResource(String token) throws SessionException {
-        UserModel user = sessionService.getUserFromSession(token);
-        if (!user.getRole().equals(Role.ROLE_ADMIN.name())) {
+        this.adminResource(sessionService.getUserFromSession(token));
+    }
+
+    /**
+     * Checks the role of a user already resolved from the session, without looking the session up again.
+     */
+    public void adminResource(UserModel user) throws SessionException {
+        if (!Role.ROLE_ADMIN.name().equals(user.getRole())) {
             throw new SessionException.InvalidSessionException("No access");
         }
     }
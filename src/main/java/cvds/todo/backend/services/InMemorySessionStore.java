@@ -0,0 +1,143 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.UserModel;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session store kept in the heap. Sessions hold the full user returned at login.
+ */
+public class InMemorySessionStore implements SessionStore {
+    private final Map<String, SessionInfo> activeSessions = new ConcurrentHashMap<>();
+
+    /**
+     * Sessions ordered by expiration time. The reaper only visits the expired head of the
+     * set and the eviction takes the session renewed longest ago.
+     */
+    private final NavigableSet<SessionInfo> expirationIndex = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong((SessionInfo session) -> session.expirationTime)
+                    .thenComparingLong(session -> session.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public void save(String sessionId, UserModel user, long createdTime, long expirationTime) {
+        SessionInfo sessionInfo = new SessionInfo(sessionId, user, createdTime, expirationTime, sequence.incrementAndGet());
+        SessionInfo previous = activeSessions.put(sessionId, sessionInfo);
+        expirationIndex.add(sessionInfo);
+        if (previous != null) {
+            expirationIndex.remove(previous);
+        }
+    }
+
+    @Override
+    public Entry find(String sessionId) {
+        SessionInfo sessionInfo = activeSessions.get(sessionId);
+        return sessionInfo == null ? null : new Entry(sessionInfo.user, sessionInfo.createdTime, sessionInfo.expirationTime);
+    }
+
+    /**
+     * Replaces the session with a copy that expires later. The map and the index keep
+     * immutable entries, so a concurrent reaper never sees a half updated session.
+     */
+    @Override
+    public boolean renew(String sessionId, long expirationTime) {
+        while (true) {
+            SessionInfo sessionInfo = activeSessions.get(sessionId);
+            if (sessionInfo == null) {
+                return false;
+            }
+            SessionInfo renewed = new SessionInfo(sessionId, sessionInfo.user, sessionInfo.createdTime, expirationTime,
+                    sequence.incrementAndGet());
+            if (activeSessions.replace(sessionId, sessionInfo, renewed)) {
+                expirationIndex.add(renewed);
+                expirationIndex.remove(sessionInfo);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String sessionId) {
+        SessionInfo sessionInfo = activeSessions.remove(sessionId);
+        if (sessionInfo == null) {
+            return false;
+        }
+        expirationIndex.remove(sessionInfo);
+        return true;
+    }
+
+    @Override
+    public boolean expire(String sessionId, long now) {
+        SessionInfo sessionInfo = activeSessions.get(sessionId);
+        return sessionInfo != null && sessionInfo.expirationTime < now && this.remove(sessionInfo);
+    }
+
+    /**
+     * Only the expired head of the expiration index is visited, so the cost depends on the
+     * number of expired sessions and not on the sessions stored. The view is weakly consistent,
+     * so sessions removed or renewed at the same time are simply skipped.
+     */
+    @Override
+    public int removeExpired(long now) {
+        SessionInfo bound = new SessionInfo(null, null, 0, now, Long.MIN_VALUE);
+        int removed = 0;
+        for (SessionInfo expired : expirationIndex.headSet(bound)) {
+            if (this.remove(expired)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int evictOverflow(int maxSessions) {
+        int evicted = 0;
+        while (activeSessions.size() > maxSessions) {
+            SessionInfo oldest = expirationIndex.pollFirst();
+            if (oldest == null) {
+                break;
+            }
+            if (activeSessions.remove(oldest.sessionId, oldest)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public long size() {
+        return activeSessions.size();
+    }
+
+    private boolean remove(SessionInfo sessionInfo) {
+        expirationIndex.remove(sessionInfo);
+        return activeSessions.remove(sessionInfo.sessionId, sessionInfo);
+    }
+
+    private static class SessionInfo {
+        final String sessionId;
+        final UserModel user;
+        final long createdTime;
+        final long expirationTime;
+        final long sequence;
+
+        SessionInfo(String sessionId, UserModel user, long createdTime, long expirationTime, long sequence) {
+            this.sessionId = sessionId;
+            this.user = user;
+            this.createdTime = createdTime;
+            this.expirationTime = expirationTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public String toString() {
+            return user.getUsername() + ": " + expirationTime;
+        }
+    }
+}
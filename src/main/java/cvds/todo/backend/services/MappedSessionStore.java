@@ -0,0 +1,460 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.enums.Role;
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.UserModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact session store that keeps fixed width records outside the Java heap, either in a
+ * direct buffer or in a memory mapped file that survives restarts.
+ * <p>
+ * The table is an open addressing hash table with linear probing, keyed by the 128 bits of
+ * the session UUID. A record only holds the user id, the username, the email, the role, the
+ * creation time and the expiration, never the password hash. User ids must be UUIDs, as generated by UserService,
+ * and usernames must fit in 32 bytes of UTF-8; other users are rejected. An email longer than
+ * 80 bytes of UTF-8 is not stored and the session user has no email.
+ */
+public class MappedSessionStore implements SessionStore, Closeable {
+    private static final int MAGIC = 0x53455353;
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 168;
+
+    private static final int STATE = 0;
+    private static final int ROLE = 1;
+    private static final int USERNAME_LENGTH = 2;
+    private static final int EMAIL_LENGTH = 3;
+    private static final int SESSION_HIGH = 8;
+    private static final int SESSION_LOW = 16;
+    private static final int USER_HIGH = 24;
+    private static final int USER_LOW = 32;
+    private static final int EXPIRATION = 40;
+    private static final int CREATED = 48;
+    private static final int USERNAME = 56;
+    static final int USERNAME_BYTES = 32;
+    private static final int EMAIL = USERNAME + USERNAME_BYTES;
+    static final int EMAIL_BYTES = RECORD_BYTES - EMAIL;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte NO_ROLE = -1;
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final ByteBuffer table;
+    private final FileChannel channel;
+    private final int capacity;
+    private final int mask;
+    private final int sweepBudget;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+    private int sweepCursor;
+
+    private MappedSessionStore(ByteBuffer table, FileChannel channel, int capacity) {
+        this.table = table;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sweepBudget = Math.max(1024, capacity / 16);
+    }
+
+    /**
+     * Creates a store in a direct buffer, outside the heap but lost on restart.
+     *
+     * @param maxSessions Maximum number of sessions the store must hold.
+     */
+    public static MappedSessionStore offHeap(int maxSessions) {
+        int capacity = capacityFor(maxSessions);
+        MappedSessionStore store = new MappedSessionStore(ByteBuffer.allocateDirect(tableBytes(capacity)), null, capacity);
+        store.writeHeader();
+        return store;
+    }
+
+    /**
+     * Creates or reopens a store backed by a memory mapped file. Sessions saved by a previous
+     * run are kept when the file was created with the same capacity.
+     *
+     * @param file        File holding the table.
+     * @param maxSessions Maximum number of sessions the store must hold.
+     */
+    public static MappedSessionStore mapped(Path file, int maxSessions) throws IOException {
+        int capacity = capacityFor(maxSessions);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(capacity));
+        MappedSessionStore store = new MappedSessionStore(buffer, channel, capacity);
+
+        if (store.hasValidHeader()) {
+            store.recountSize();
+        } else {
+            store.clear();
+            store.writeHeader();
+        }
+        return store;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the user id is not a UUID or the username does not fit in a record.
+     */
+    @Override
+    public void save(String sessionId, UserModel user, long createdTime, long expirationTime) {
+        UUID key = UUID.fromString(sessionId);
+        UUID userId = parse(user.getId());
+        if (userId == null) {
+            throw new IllegalArgumentException("User id " + user.getId() + " is not a UUID");
+        }
+        byte[] username = encode(user.getUsername());
+        if (username.length > USERNAME_BYTES) {
+            throw new IllegalArgumentException("Username " + user.getUsername() + " is longer than " + USERNAME_BYTES + " bytes");
+        }
+        byte[] email = encode(user.getEmail());
+        if (email.length > EMAIL_BYTES) {
+            email = new byte[0];
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = this.locate(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0) {
+                if (size >= capacity - capacity / 4) {
+                    this.evictOne();
+                    slot = this.locate(key.getMostSignificantBits(), key.getLeastSignificantBits());
+                }
+                slot = -slot - 1;
+                size++;
+            }
+            this.writeRecord(offset(slot), key, userId, username, email, user.getRole(), createdTime, expirationTime);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Entry find(String sessionId) {
+        UUID key = parse(sessionId);
+        if (key == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = this.locate(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            return slot < 0 ? null : this.readRecord(offset(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean renew(String sessionId, long expirationTime) {
+        UUID key = parse(sessionId);
+        if (key == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = this.locate(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0) {
+                return false;
+            }
+            table.putLong(offset(slot) + EXPIRATION, expirationTime);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String sessionId) {
+        return this.removeIf(sessionId, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean expire(String sessionId, long now) {
+        return this.removeIf(sessionId, now);
+    }
+
+    /**
+     * Sweeps a bounded window of the table on each call and continues where the previous
+     * call stopped, so each run costs the same whatever the number of sessions. Sessions not
+     * swept yet are still expired lazily when they are read.
+     */
+    @Override
+    public int removeExpired(long now) {
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            int visited = 0;
+            while (visited < sweepBudget && size > 0) {
+                int offset = offset(sweepCursor);
+                if (table.get(offset + STATE) == USED && table.getLong(offset + EXPIRATION) < now) {
+                    // The backward shift may move another record into this slot, look at it again
+                    this.deleteSlot(sweepCursor);
+                    removed++;
+                } else {
+                    sweepCursor = (sweepCursor + 1) & mask;
+                }
+                visited++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Evicts the session closest to expire among a few sampled records, an approximation of
+     * the least recently renewed session that does not need an ordered index.
+     */
+    @Override
+    public int evictOverflow(int maxSessions) {
+        int evicted = 0;
+        lock.writeLock().lock();
+        try {
+            while (size > maxSessions) {
+                this.evictOne();
+                evicted++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return evicted;
+    }
+
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            lock.writeLock().lock();
+            try {
+                ((MappedByteBuffer) table).force();
+                channel.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean removeIf(String sessionId, long now) {
+        UUID key = parse(sessionId);
+        if (key == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = this.locate(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (slot < 0 || table.getLong(offset(slot) + EXPIRATION) >= now) {
+                return false;
+            }
+            this.deleteSlot(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The slot holding the key, or (-emptySlot - 1) where the key would be inserted.
+     */
+    private int locate(long high, long low) {
+        int slot = this.home(high, low);
+        for (int probes = 0; probes < capacity; probes++) {
+            int offset = offset(slot);
+            if (table.get(offset + STATE) == EMPTY) {
+                return -slot - 1;
+            }
+            if (table.getLong(offset + SESSION_HIGH) == high && table.getLong(offset + SESSION_LOW) == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new IllegalStateException("Session table is full");
+    }
+
+    /**
+     * Removes a record with backward shift deletion, which keeps probe chains intact
+     * without tombstones.
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table.get(offset(next) + STATE) == USED) {
+            int home = this.home(table.getLong(offset(next) + SESSION_HIGH), table.getLong(offset(next) + SESSION_LOW));
+            boolean staysInPlace = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!staysInPlace) {
+                this.copyRecord(offset(next), offset(hole));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.clearRecord(offset(hole));
+        size--;
+    }
+
+    private void evictOne() {
+        int slot = ThreadLocalRandom.current().nextInt(capacity);
+        int candidate = -1;
+        long candidateExpiration = Long.MAX_VALUE;
+        for (int seen = 0, probes = 0; seen < EVICTION_SAMPLES && probes < capacity; probes++) {
+            int offset = offset(slot);
+            if (table.get(offset + STATE) == USED) {
+                long expiration = table.getLong(offset + EXPIRATION);
+                if (expiration < candidateExpiration) {
+                    candidate = slot;
+                    candidateExpiration = expiration;
+                }
+                seen++;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (candidate >= 0) {
+            this.deleteSlot(candidate);
+        }
+    }
+
+    private void writeRecord(int offset, UUID key, UUID userId, byte[] username, byte[] email, String role,
+                             long createdTime, long expirationTime) {
+        table.put(offset + STATE, USED);
+        table.put(offset + ROLE, roleOrdinal(role));
+        table.put(offset + USERNAME_LENGTH, (byte) username.length);
+        table.put(offset + EMAIL_LENGTH, (byte) email.length);
+        table.putLong(offset + SESSION_HIGH, key.getMostSignificantBits());
+        table.putLong(offset + SESSION_LOW, key.getLeastSignificantBits());
+        table.putLong(offset + USER_HIGH, userId.getMostSignificantBits());
+        table.putLong(offset + USER_LOW, userId.getLeastSignificantBits());
+        table.putLong(offset + EXPIRATION, expirationTime);
+        table.putLong(offset + CREATED, createdTime);
+        table.put(offset + USERNAME, username);
+        table.put(offset + EMAIL, email);
+    }
+
+    private Entry readRecord(int offset) {
+        UserModel user = new UserModel();
+        user.setId(new UUID(table.getLong(offset + USER_HIGH), table.getLong(offset + USER_LOW)).toString());
+
+        byte role = table.get(offset + ROLE);
+        user.setRole(role == NO_ROLE ? null : Role.values()[role].name());
+
+        byte[] username = new byte[table.get(offset + USERNAME_LENGTH)];
+        table.get(offset + USERNAME, username);
+        user.setUsername(new String(username, StandardCharsets.UTF_8));
+
+        byte[] email = new byte[table.get(offset + EMAIL_LENGTH)];
+        table.get(offset + EMAIL, email);
+        user.setEmail(email.length == 0 ? null : new String(email, StandardCharsets.UTF_8));
+
+        return new Entry(user, table.getLong(offset + CREATED), table.getLong(offset + EXPIRATION));
+    }
+
+    private void copyRecord(int from, int to) {
+        for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+            table.putLong(to + i, table.getLong(from + i));
+        }
+    }
+
+    private void clearRecord(int offset) {
+        for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+            table.putLong(offset + i, 0L);
+        }
+    }
+
+    private void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            this.clearRecord(offset(slot));
+        }
+        size = 0;
+    }
+
+    private void recountSize() {
+        size = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.get(offset(slot) + STATE) == USED) {
+                size++;
+            }
+        }
+    }
+
+    private boolean hasValidHeader() {
+        return table.getInt(0) == MAGIC && table.getInt(4) == FORMAT_VERSION
+                && table.getInt(8) == capacity && table.getInt(12) == RECORD_BYTES;
+    }
+
+    private void writeHeader() {
+        table.putInt(0, MAGIC);
+        table.putInt(4, FORMAT_VERSION);
+        table.putInt(8, capacity);
+        table.putInt(12, RECORD_BYTES);
+    }
+
+    private int home(long high, long low) {
+        long hash = high ^ low;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static byte roleOrdinal(String role) {
+        if (role == null) {
+            return NO_ROLE;
+        }
+        try {
+            return (byte) Role.valueOf(role).ordinal();
+        } catch (IllegalArgumentException e) {
+            return NO_ROLE;
+        }
+    }
+
+    private static UUID parse(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int capacityFor(int maxSessions) {
+        long wanted = Math.max(16L, maxSessions) * 2;
+        long capacity = Long.highestOneBit(wanted - 1) << 1;
+        if (capacity * RECORD_BYTES + HEADER_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many sessions for a single table: " + maxSessions);
+        }
+        return (int) capacity;
+    }
+
+    private static int tableBytes(int capacity) {
+        return HEADER_BYTES + capacity * RECORD_BYTES;
+    }
+}
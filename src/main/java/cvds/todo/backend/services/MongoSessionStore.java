@@ -0,0 +1,193 @@
+package cvds.todo.backend.services;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.SessionModel;
+import cvds.todo.backend.model.UserModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Session store shared by every instance through a TTL indexed collection. Lookups go through a
+ * small near cache, positive and negative, so most requests are answered without a round trip.
+ * A session removed on another instance may still be accepted here until its cached copy expires,
+ * which is why the cache time to live is kept to a few seconds. The TTL index declared on
+ * SessionModel is created by MongoIndexManager, so building the store never waits on the database.
+ */
+public class MongoSessionStore implements SessionStore {
+    private final MongoTemplate mongoTemplate;
+    private final long nearCacheTtlMillis;
+    private final long negativeCacheTtlMillis;
+    private final int nearCacheMaxSize;
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+
+    private final Counter nearCacheHits;
+    private final Counter nearCacheMisses;
+
+    public MongoSessionStore(MongoTemplate mongoTemplate, MeterRegistry meterRegistry, long nearCacheTtlMillis,
+                             long negativeCacheTtlMillis, int nearCacheMaxSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.nearCacheTtlMillis = nearCacheTtlMillis;
+        this.negativeCacheTtlMillis = negativeCacheTtlMillis;
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        this.nearCacheHits = Counter.builder("sessions.near_cache")
+                .description("Session lookups answered by the local near cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.nearCacheMisses = Counter.builder("sessions.near_cache")
+                .description("Session lookups that went to MongoDB")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(String sessionId, UserModel user, long createdTime, long expirationTime) {
+        mongoTemplate.save(new SessionModel(sessionId, user, Instant.ofEpochMilli(createdTime), Instant.ofEpochMilli(expirationTime)));
+        this.cache(sessionId, new Entry(user, createdTime, expirationTime), nearCacheTtlMillis);
+    }
+
+    @Override
+    public Entry find(String sessionId) {
+        long now = System.currentTimeMillis();
+        CachedSession cached = nearCache.get(sessionId);
+        // A cached session that looks expired is read again, another instance may have renewed it
+        if (cached != null && cached.cachedUntil > now
+                && (cached.entry == null || cached.entry.getExpirationTime() >= now)) {
+            nearCacheHits.increment();
+            return cached.entry;
+        }
+
+        nearCacheMisses.increment();
+        SessionModel session = mongoTemplate.findById(sessionId, SessionModel.class);
+        if (session == null) {
+            this.cache(sessionId, null, negativeCacheTtlMillis);
+            return null;
+        }
+        // Sessions saved before the creation time was stored cannot be renewed past their expiration
+        long createdTime = session.getCreatedAt() == null ? 0 : session.getCreatedAt().toEpochMilli();
+        Entry entry = new Entry(session.toUser(), createdTime, session.getExpiresAt().toEpochMilli());
+        this.cache(sessionId, entry, nearCacheTtlMillis);
+        return entry;
+    }
+
+    @Override
+    public boolean renew(String sessionId, long expirationTime) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(where("_id").is(sessionId)),
+                new Update().set("expiresAt", Instant.ofEpochMilli(expirationTime)),
+                SessionModel.class);
+        if (result.getMatchedCount() == 0) {
+            this.cache(sessionId, null, negativeCacheTtlMillis);
+            return false;
+        }
+
+        CachedSession cached = nearCache.get(sessionId);
+        if (cached != null && cached.entry != null) {
+            this.cache(sessionId, new Entry(cached.entry.getUser(), cached.entry.getCreatedTime(), expirationTime), nearCacheTtlMillis);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(String sessionId) {
+        DeleteResult result = mongoTemplate.remove(Query.query(where("_id").is(sessionId)), SessionModel.class);
+        this.cache(sessionId, null, negativeCacheTtlMillis);
+        return result.getDeletedCount() > 0;
+    }
+
+    @Override
+    public boolean expire(String sessionId, long now) {
+        DeleteResult result = mongoTemplate.remove(
+                Query.query(where("_id").is(sessionId).and("expiresAt").lt(Instant.ofEpochMilli(now))),
+                SessionModel.class);
+        if (result.getDeletedCount() == 0) {
+            nearCache.remove(sessionId);
+            return false;
+        }
+        this.cache(sessionId, null, negativeCacheTtlMillis);
+        return true;
+    }
+
+    /**
+     * The TTL monitor of MongoDB deletes expired sessions on its own about once a minute. This
+     * only runs the same delete sooner, served by the TTL index, and drops stale cache entries.
+     */
+    @Override
+    public int removeExpired(long now) {
+        nearCache.values().removeIf(cached -> cached.cachedUntil <= now
+                || (cached.entry != null && cached.entry.getExpirationTime() < now));
+        DeleteResult result = mongoTemplate.remove(
+                Query.query(where("expiresAt").lt(Instant.ofEpochMilli(now))), SessionModel.class);
+        return (int) result.getDeletedCount();
+    }
+
+    /**
+     * Uses the estimated count of the collection, so the cap is approximate across instances.
+     */
+    @Override
+    public int evictOverflow(int maxSessions) {
+        long overflow = this.size() - maxSessions;
+        if (overflow <= 0) {
+            return 0;
+        }
+
+        Query oldest = new Query().with(Sort.by(Sort.Direction.ASC, "expiresAt")).limit((int) Math.min(overflow, Integer.MAX_VALUE));
+        oldest.fields().include("_id");
+        List<String> sessionIds = mongoTemplate.find(oldest, SessionModel.class).stream()
+                .map(SessionModel::getId)
+                .toList();
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+
+        DeleteResult result = mongoTemplate.remove(Query.query(where("_id").in(sessionIds)), SessionModel.class);
+        sessionIds.forEach(nearCache::remove);
+        return (int) result.getDeletedCount();
+    }
+
+    @Override
+    public long size() {
+        return mongoTemplate.estimatedCount(SessionModel.class);
+    }
+
+    /**
+     * Keeps the near cache bounded. Expired entries go first; if the cache is still full it is
+     * cleared, which only costs a round trip per session on the next lookups.
+     */
+    private void cache(String sessionId, Entry entry, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            nearCache.remove(sessionId);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (nearCache.size() >= nearCacheMaxSize) {
+            nearCache.values().removeIf(cached -> cached.cachedUntil <= now);
+            if (nearCache.size() >= nearCacheMaxSize) {
+                nearCache.clear();
+            }
+        }
+        nearCache.put(sessionId, new CachedSession(entry, now + ttlMillis));
+    }
+
+    private static class CachedSession {
+        final Entry entry;
+        final long cachedUntil;
+
+        CachedSession(Entry entry, long cachedUntil) {
+            this.entry = entry;
+            this.cachedUntil = cachedUntil;
+        }
+    }
+}
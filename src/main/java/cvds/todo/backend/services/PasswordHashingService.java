@@ -0,0 +1,124 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.exceptions.UserException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the password encoder on a small dedicated pool. Hashing is the most expensive part of a
+ * login, so the pool and its queue are bounded: when both are full the request is rejected right
+ * away instead of holding a web server thread that other endpoints need.
+ */
+@Service
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    @Autowired
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${todo.passwords.threads:0}") int threads,
+                                  @Value("${todo.passwords.queue-capacity:64}") int queueCapacity,
+                                  @Value("${todo.passwords.timeout-ms:5000}") long timeoutMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("passwords.hashing")
+                .description("Time spent hashing a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("passwords.hashing")
+                .description("Time spent checking a password against its hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("passwords.hashing.rejected")
+                .description("Password operations rejected because the hashing pool was full or too slow")
+                .register(meterRegistry);
+        Gauge.builder("passwords.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password operations waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("passwords.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password operations being hashed")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) throws UserException {
+        return this.run("hash", encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) throws UserException {
+        return this.run("check", matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Tells whether a stored hash was made with another algorithm or weaker parameters than the
+     * ones configured. It only parses the hash, so it runs on the calling thread.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(String operation, Timer timer, Callable<T> task) throws UserException {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new UserException.UserServiceBusyException(operation);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new UserException.UserServiceBusyException(operation);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UserException.UserServiceBusyException(operation);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.interfeces.ReactiveTasksService;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.ReactiveTaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Task operations of the reactive API, on the reactive MongoDB driver. Queries, validation and
+ * updates are built by {@link TaskService}, so both APIs behave the same, and every write keeps
+ * the task cache, the tombstones and the change stream of the blocking API up to date.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTaskService implements ReactiveTasksService {
+    private final ReactiveTaskRepository taskRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TaskService taskService;
+    private final TaskCache taskCache;
+    private final TaskEventService taskEventService;
+
+    @Autowired
+    public ReactiveTaskService(ReactiveTaskRepository taskRepository, ReactiveMongoTemplate mongoTemplate,
+                               TaskService taskService, TaskCache taskCache, TaskEventService taskEventService) {
+        this.taskRepository = taskRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.taskService = taskService;
+        this.taskCache = taskCache;
+        this.taskEventService = taskEventService;
+    }
+
+    @Override
+    public Flux<TaskModel> getAllTasks(UserModel user) {
+        return taskRepository.findByOwnerIdsContaining(user.getId());
+    }
+
+    @Override
+    public Flux<TaskModel> findTasks(UserModel user, TaskQueryModel taskQuery) throws AppException {
+        Query query = taskService.buildTaskQuery(user, taskQuery).cursorBatchSize(ReactiveTaskRepository.STREAM_BATCH_SIZE);
+        return mongoTemplate.find(query, TaskModel.class);
+    }
+
+    @Override
+    public Mono<TaskModel> getTaskById(String id, UserModel user) {
+        return taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), id)
+                .switchIfEmpty(Mono.error(() -> new TaskException.TaskNotFoundException(id)));
+    }
+
+    @Override
+    public Mono<TaskModel> createTask(TaskModel task, UserModel user) {
+        return Mono.fromCallable(() -> {
+                    taskService.isValidTask(task);
+
+                    final LocalDateTime now = LocalDateTime.now();
+                    task.setId(UUID.randomUUID().toString());
+                    task.setCreatedAt(now);
+                    task.setUpdatedAt(now);
+                    task.setOwnerIds(Collections.singletonList(user.getId()));
+                    return task;
+                })
+                .flatMap(taskRepository::insert)
+                .doOnNext(created -> {
+                    taskCache.invalidate(user.getId());
+                    taskEventService.publish(user.getId(), TaskEventType.CREATED, created.getId(), created);
+                });
+    }
+
+    /**
+     * Same single findAndModify as {@link TaskService#updateTask(String, TaskModel, UserModel, Long)};
+     * the existence check that tells a version mismatch from a missing task only runs when nothing matched.
+     */
+    @Override
+    public Mono<TaskModel> updateTask(String id, TaskModel task, UserModel user, Long expectedVersion) {
+        Criteria owned = Criteria.where("_id").is(id).and("ownerIds").is(user.getId());
+        return Mono.fromCallable(() -> {
+                    taskService.isValidPatch(task);
+
+                    Query query = new Query(owned);
+                    if (expectedVersion != null) {
+                        query.addCriteria(Criteria.where("version").is(expectedVersion));
+                    }
+                    query.fields().exclude("ownerIds");
+                    return query;
+                })
+                .flatMap(query -> mongoTemplate.findAndModify(query, taskService.patchUpdate(task, LocalDateTime.now()),
+                        FindAndModifyOptions.options().returnNew(true), TaskModel.class))
+                .doOnSuccess(updated -> {
+                    taskCache.invalidate(user.getId(), id);
+                    if (updated != null) {
+                        taskEventService.publish(user.getId(), TaskEventType.UPDATED, id, updated);
+                    }
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    if (expectedVersion == null) {
+                        return Mono.error(new TaskException.TaskNotFoundException(id));
+                    }
+                    return mongoTemplate.exists(new Query(owned), TaskModel.class)
+                            .flatMap(exists -> Mono.error(exists
+                                    ? new TaskException.TaskVersionMismatchException(id)
+                                    : new TaskException.TaskNotFoundException(id)));
+                }));
+    }
+
+    /**
+     * Reads and deletes the task in one findAndRemove, then leaves its tombstone for /tasks/changes.
+     */
+    @Override
+    public Mono<TaskModel> deleteTask(String id, UserModel user) {
+        Query query = new Query(Criteria.where("_id").is(id).and("ownerIds").is(user.getId()));
+        query.fields().exclude("ownerIds");
+
+        return mongoTemplate.findAndRemove(query, TaskModel.class)
+                .flatMap(deleted -> {
+                    taskCache.invalidate(user.getId(), id);
+                    return mongoTemplate.insert(new TaskTombstoneModel(user.getId(), id, LocalDateTime.now()))
+                            .doOnSuccess(tombstone -> taskEventService.publish(user.getId(), TaskEventType.DELETED, id, null))
+                            .thenReturn(deleted);
+                })
+                .switchIfEmpty(Mono.error(() -> new TaskException.TaskNotFoundException(id)));
+    }
+}
@@ -1,45 +1,118 @@
 package cvds.todo.backend.services;
 
 import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.interfeces.SessionStore;
 import cvds.todo.backend.interfeces.SessionsService;
 import cvds.todo.backend.model.UserModel;
-import org.springframework.security.core.userdetails.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Server side sessions, the token is a random ID looked up in the configured session store.
+ * Renewals move the expiration, but never past the absolute lifetime counted from the login.
+ */
 @Service
+@ConditionalOnProperty(name = "todo.sessions.mode", havingValue = "server", matchIfMissing = true)
 public class SessionService implements SessionsService {
     private static final int COOKIE_MAX_AGE_MIN = 1800;
-    private final Map<String, SessionInfo> activeSessions = new ConcurrentHashMap<>();
+    private static final int ABSOLUTE_MAX_AGE_MIN = 7 * 24 * 60;
+    private final SessionStore sessionStore;
 
-    public UserModel getUserFromSession(String sessionId) throws SessionException {
-        SessionInfo sessionInfo = activeSessions.get(sessionId);
+    @Value("${todo.sessions.max-age-minutes:" + COOKIE_MAX_AGE_MIN + "}")
+    private long sessionMaxAgeMinutes = COOKIE_MAX_AGE_MIN;
+
+    @Value("${todo.sessions.absolute-max-age-minutes:" + ABSOLUTE_MAX_AGE_MIN + "}")
+    private long absoluteMaxAgeMinutes = ABSOLUTE_MAX_AGE_MIN;
+
+    @Value("${todo.sessions.max-active:100000}")
+    private int maxActiveSessions = 100_000;
+
+    @Value("${todo.sessions.renew-on-access:true}")
+    private boolean renewOnAccess = true;
+
+    private final Counter sessionHits;
+    private final Counter sessionMisses;
+    private final Counter sessionExpirations;
+    private final Counter sessionEvictions;
+
+    public SessionService() {
+        this(new InMemorySessionStore(), new SimpleMeterRegistry());
+    }
 
-        System.out.println(sessionInfo);
+    @Autowired
+    public SessionService(SessionStore sessionStore, MeterRegistry meterRegistry) {
+        this.sessionStore = sessionStore;
+        this.sessionHits = Counter.builder("sessions.lookups")
+                .description("Session lookups that found an active session")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.sessionMisses = Counter.builder("sessions.lookups")
+                .description("Session lookups for unknown session IDs")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.sessionExpirations = Counter.builder("sessions.expirations")
+                .description("Sessions removed because they expired")
+                .register(meterRegistry);
+        this.sessionEvictions = Counter.builder("sessions.evictions")
+                .description("Sessions removed to keep the store under its maximum size")
+                .register(meterRegistry);
+        Gauge.builder("sessions.active", sessionStore, SessionStore::size)
+                .description("Sessions currently stored")
+                .register(meterRegistry);
+    }
 
-        activeSessions.forEach((key, value) -> {
-            System.out.println(key + ": : :" + value);
-        });
+    /**
+     * Resolves the user of a session with a single store lookup. This runs on every
+     * authenticated request, so it must not log nor iterate the sessions.
+     */
+    public UserModel getUserFromSession(String sessionId) throws SessionException {
+        SessionStore.Entry session = sessionId == null ? null : sessionStore.find(sessionId);
 
-        if (sessionInfo == null) {
+        if (session == null) {
+            sessionMisses.increment();
             throw new SessionException.SessionNotFoundException(sessionId);
         }
-        if (System.currentTimeMillis() > sessionInfo.expirationTime) {
-            activeSessions.remove(sessionId);
+
+        long now = System.currentTimeMillis();
+        if (now > session.getExpirationTime()) {
+            if (sessionStore.expire(sessionId, now)) {
+                sessionExpirations.increment();
+            }
             throw new SessionException.ExpiredSessionException(sessionId);
         }
 
-        return sessionInfo.user;
+        // Sliding expiration, only once half of the lifetime has passed so most lookups stay read only
+        if (renewOnAccess && session.getExpirationTime() - now < this.sessionMaxAgeMillis() / 2) {
+            this.renew(sessionId, session, now);
+        }
+
+        sessionHits.increment();
+        return session.getUser();
     }
 
     public String createSessionCookie(UserModel user) throws SessionException {
         String sessionId = UUID.randomUUID().toString();
-        long expirationTime = System.currentTimeMillis() + (COOKIE_MAX_AGE_MIN * 60000);
+        long now = System.currentTimeMillis();
+        long expirationTime = now + Math.min(this.sessionMaxAgeMillis(), this.absoluteMaxAgeMillis());
 
-        activeSessions.put(sessionId, new SessionInfo(user, expirationTime));
+        try {
+            sessionStore.save(sessionId, user, now, expirationTime);
+        } catch (IllegalArgumentException e) {
+            throw new SessionException("Cannot open a session for user " + user.getId() + ": " + e.getMessage(), 422);
+        }
+        int evicted = sessionStore.evictOverflow(maxActiveSessions);
+        if (evicted > 0) {
+            sessionEvictions.increment(evicted);
+        }
 
         return sessionId;
 
@@ -51,49 +124,66 @@ public class SessionService implements SessionsService {
 //                .build();
     }
 
+    /**
+     * @return false when the session already reached its absolute lifetime and cannot be extended.
+     */
     public boolean renewSession(String sessionId) throws SessionException {
-        SessionInfo sessionInfo = activeSessions.get(sessionId);
+        SessionStore.Entry session = sessionId == null ? null : sessionStore.find(sessionId);
+        long now = System.currentTimeMillis();
 
-        if (sessionInfo == null || System.currentTimeMillis() > sessionInfo.expirationTime) {
+        if (session == null || now > session.getExpirationTime()) {
+            throw new SessionException.ExpiredSessionException(sessionId);
+        }
+        if (this.renewedExpiration(session, now) <= session.getExpirationTime()) {
+            // Already as long as a renewal would make it, false only once capped by the absolute lifetime
+            return session.getCreatedTime() + this.absoluteMaxAgeMillis() > session.getExpirationTime();
+        }
+        if (!this.renew(sessionId, session, now)) {
             throw new SessionException.ExpiredSessionException(sessionId);
         }
-
-        sessionInfo.expirationTime = System.currentTimeMillis() + (COOKIE_MAX_AGE_MIN * 60000);
         return true;
     }
 
     public boolean isSessionActive(String sessionId) throws SessionException {
-        UserModel user = getUserFromSession(sessionId);
-        if (user == null) {
-            throw new SessionException.SessionNotFoundException(sessionId);
-        }
-        return activeSessions.containsKey(sessionId);
+        getUserFromSession(sessionId);
+        return true;
     }
 
     public void invalidateSession(String sessionId) throws SessionException {
-        if (activeSessions.remove(sessionId) == null) {
+        if (sessionId == null || !sessionStore.remove(sessionId)) {
             throw new SessionException.SessionNotFoundException(sessionId);
         }
     }
 
-    public void cleanExpiredSessions(){
-        long currentTime = System.currentTimeMillis();
-        activeSessions.entrySet().removeIf(entry ->
-                entry.getValue().expirationTime < currentTime);
+    /**
+     * Removes the expired sessions. The store decides how, the in memory store only visits
+     * the expired sessions and compact stores sweep a bounded window per run.
+     */
+    @Scheduled(fixedDelayString = "${todo.sessions.reaper-interval-ms:30000}")
+    public void cleanExpiredSessions() {
+        int removed = sessionStore.removeExpired(System.currentTimeMillis());
+        if (removed > 0) {
+            sessionExpirations.increment(removed);
+        }
     }
 
-    private static class SessionInfo {
-        UserModel user;
-        long expirationTime;
+    /**
+     * Extends the session by its max age, capped by its absolute lifetime. It is never shortened.
+     */
+    private boolean renew(String sessionId, SessionStore.Entry session, long now) {
+        long expirationTime = this.renewedExpiration(session, now);
+        return expirationTime > session.getExpirationTime() && sessionStore.renew(sessionId, expirationTime);
+    }
 
-        SessionInfo(UserModel user, long expirationTime) {
-            this.user = user;
-            this.expirationTime = expirationTime;
-        }
+    private long renewedExpiration(SessionStore.Entry session, long now) {
+        return Math.min(now + this.sessionMaxAgeMillis(), session.getCreatedTime() + this.absoluteMaxAgeMillis());
+    }
 
-        @Override
-        public String toString() {
-            return user.getUsername() + ": " + expirationTime;
-        }
+    private long sessionMaxAgeMillis() {
+        return sessionMaxAgeMinutes * 60000;
+    }
+
+    private long absoluteMaxAgeMillis() {
+        return absoluteMaxAgeMinutes * 60000;
     }
 }
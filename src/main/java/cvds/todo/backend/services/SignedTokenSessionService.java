@@ -0,0 +1,413 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.interfeces.SessionsService;
+import cvds.todo.backend.model.RevokedTokenModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.MongoIndexManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Stateless sessions. The token carries the user id, username, email, role and expiration signed with
+ * HMAC-SHA256, so any instance holding the secret validates it without looking a session up.
+ * Logged out tokens are kept in a revocation list until they expire. The list is shared through a TTL
+ * indexed collection that every instance polls, so another instance may still accept a logged out token
+ * for up to todo.sessions.revocation-poll-ms.
+ */
+@Service
+@ConditionalOnProperty(name = "todo.sessions.mode", havingValue = "token")
+public class SignedTokenSessionService implements SessionsService {
+    private static final Logger logger = LoggerFactory.getLogger(SignedTokenSessionService.class);
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte TOKEN_VERSION = 2;
+    private static final int MIN_SECRET_BYTES = 32;
+    /**
+     * How far before the newest revocation read each poll looks again, for instances whose clocks
+     * drift apart and revocations written out of order.
+     */
+    private static final long REVOCATION_POLL_OVERLAP_MILLIS = 10000;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec secretKey;
+    private final int revocationCapacity;
+    /**
+     * Initialized MACs ready to be reused. A pool instead of a thread local, with virtual threads every
+     * request runs on a new thread and a thread local would build a MAC per request.
+     */
+    private final ConcurrentLinkedQueue<Mac> macs = new ConcurrentLinkedQueue<>();
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${todo.sessions.max-age-minutes:1800}")
+    private long sessionMaxAgeMinutes = 1800;
+
+    /**
+     * Revoked token signatures and their expiration. The bloom filter answers the common case,
+     * a token that was never revoked, without touching the map.
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private volatile RevocationFilter revocationFilter;
+    private final ReentrantLock revocationLock = new ReentrantLock();
+    /**
+     * Collection shared with the other instances, null when revocations stay in this instance.
+     */
+    private final MongoTemplate mongoTemplate;
+    private volatile long revocationWatermark;
+
+    private final Counter sessionHits;
+    private final Counter sessionMisses;
+    private final Counter sessionExpirations;
+
+    /**
+     * Keeps the revocations in this instance only.
+     */
+    public SignedTokenSessionService(String secret, int revocationCapacity, MeterRegistry meterRegistry) {
+        this(secret, revocationCapacity, meterRegistry, null, null);
+    }
+
+    @Autowired
+    public SignedTokenSessionService(@Value("${todo.sessions.token-secret:}") String secret,
+                                     @Value("${todo.sessions.revocation-capacity:100000}") int revocationCapacity,
+                                     MeterRegistry meterRegistry, MongoTemplate mongoTemplate, MongoIndexManager indexManager) {
+        // A random key per instance would reject the tokens of every other instance and log everyone out on restart
+        if (secret.isBlank()) {
+            throw new IllegalStateException("todo.sessions.token-secret must be set when todo.sessions.mode=token");
+        }
+        byte[] key = DECODER.decode(secret);
+        if (key.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("todo.sessions.token-secret must hold at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.secretKey = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.revocationCapacity = revocationCapacity;
+        this.revocationFilter = new RevocationFilter(revocationCapacity);
+        this.mongoTemplate = mongoTemplate;
+        if (indexManager != null) {
+            indexManager.manage(RevokedTokenModel.class);
+        }
+
+        this.sessionHits = Counter.builder("sessions.lookups")
+                .description("Session lookups that found an active session")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.sessionMisses = Counter.builder("sessions.lookups")
+                .description("Session lookups for unknown session IDs")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.sessionExpirations = Counter.builder("sessions.expirations")
+                .description("Sessions removed because they expired")
+                .register(meterRegistry);
+        Gauge.builder("sessions.revoked", revokedTokens, Map::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    public UserModel getUserFromSession(String sessionId) throws SessionException {
+        SignedToken token = this.verify(sessionId);
+
+        if (System.currentTimeMillis() > token.expirationTime) {
+            sessionExpirations.increment();
+            throw new SessionException.ExpiredSessionException(sessionId);
+        }
+        if (this.isRevoked(token)) {
+            sessionMisses.increment();
+            throw new SessionException.SessionNotFoundException(sessionId);
+        }
+
+        sessionHits.increment();
+        return token.user;
+    }
+
+    public String createSessionCookie(UserModel user) throws SessionException {
+        long expirationTime = System.currentTimeMillis() + this.sessionMaxAgeMillis();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeByte(TOKEN_VERSION);
+            payload.writeLong(random.nextLong());
+            payload.writeLong(expirationTime);
+            payload.writeUTF(valueOf(user.getId()));
+            payload.writeUTF(valueOf(user.getUsername()));
+            payload.writeUTF(valueOf(user.getEmail()));
+            payload.writeUTF(valueOf(user.getRole()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] body = bytes.toByteArray();
+        return ENCODER.encodeToString(body) + "." + ENCODER.encodeToString(this.sign(body));
+    }
+
+    /**
+     * Signed tokens carry their expiration and cannot be extended, a new login issues a new token.
+     *
+     * @return false once the token is known to be valid.
+     */
+    public boolean renewSession(String sessionId) throws SessionException {
+        this.getUserFromSession(sessionId);
+        return false;
+    }
+
+    public boolean isSessionActive(String sessionId) throws SessionException {
+        this.getUserFromSession(sessionId);
+        return true;
+    }
+
+    /**
+     * Revokes the token here and, when revocations are shared, in the collection the other instances
+     * poll. A token already revoked by another instance is not found, as in this one.
+     */
+    public void invalidateSession(String sessionId) throws SessionException {
+        SignedToken token = this.verify(sessionId);
+        if (System.currentTimeMillis() > token.expirationTime || revokedTokens.containsKey(token.signature)) {
+            throw new SessionException.SessionNotFoundException(sessionId);
+        }
+        if (mongoTemplate != null) {
+            try {
+                mongoTemplate.insert(new RevokedTokenModel(token.signature, Instant.now(), Instant.ofEpochMilli(token.expirationTime)));
+            } catch (DuplicateKeyException e) {
+                this.revoke(token.signature, token.mac, token.expirationTime);
+                throw new SessionException.SessionNotFoundException(sessionId);
+            }
+        }
+        if (!this.revoke(token.signature, token.mac, token.expirationTime)) {
+            throw new SessionException.SessionNotFoundException(sessionId);
+        }
+    }
+
+    /**
+     * Adds the tokens revoked by the other instances since the last poll. The first poll reads every
+     * revocation that has not expired.
+     */
+    @Scheduled(fixedDelayString = "${todo.sessions.revocation-poll-ms:2000}")
+    public void pollRevocations() {
+        if (mongoTemplate == null) {
+            return;
+        }
+        Query query = Query.query(where("revokedAt").gte(Instant.ofEpochMilli(revocationWatermark - REVOCATION_POLL_OVERLAP_MILLIS))
+                .and("expiresAt").gt(Instant.now()));
+        long watermark = revocationWatermark;
+        try {
+            for (RevokedTokenModel revoked : mongoTemplate.find(query, RevokedTokenModel.class)) {
+                this.revoke(revoked.getId(), DECODER.decode(revoked.getId()), revoked.getExpiresAt().toEpochMilli());
+                watermark = Math.max(watermark, revoked.getRevokedAt().toEpochMilli());
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not read the revoked tokens: {}", e.getMessage());
+            return;
+        }
+        this.revocationWatermark = watermark;
+    }
+
+    /**
+     * Forgets revoked tokens that already expired, they are rejected by their expiration alone.
+     */
+    @Scheduled(fixedDelayString = "${todo.sessions.reaper-interval-ms:30000}")
+    public void cleanExpiredSessions() {
+        long now = System.currentTimeMillis();
+        if (revokedTokens.values().removeIf(expirationTime -> expirationTime < now)) {
+            this.rebuildRevocationFilter();
+        }
+    }
+
+    private boolean revoke(String signature, byte[] mac, long expirationTime) {
+        revocationLock.lock();
+        try {
+            if (revokedTokens.putIfAbsent(signature, expirationTime) != null) {
+                return false;
+            }
+            revocationFilter.add(mac);
+            return true;
+        } finally {
+            revocationLock.unlock();
+        }
+    }
+
+    private boolean isRevoked(SignedToken token) {
+        return revocationFilter.mightContain(token.mac) && revokedTokens.containsKey(token.signature);
+    }
+
+    /**
+     * A bloom filter cannot delete, so it is rebuilt from the remaining revoked tokens.
+     */
+    private void rebuildRevocationFilter() {
+        revocationLock.lock();
+        try {
+            RevocationFilter filter = new RevocationFilter(Math.max(revocationCapacity, revokedTokens.size()));
+            for (String signature : revokedTokens.keySet()) {
+                filter.add(DECODER.decode(signature));
+            }
+            this.revocationFilter = filter;
+        } finally {
+            revocationLock.unlock();
+        }
+    }
+
+    private SignedToken verify(String sessionId) throws SessionException {
+        int separator = sessionId == null ? -1 : sessionId.indexOf('.');
+        if (separator < 0) {
+            sessionMisses.increment();
+            throw new SessionException.InvalidSessionException(sessionId);
+        }
+
+        try {
+            byte[] body = DECODER.decode(sessionId.substring(0, separator));
+            byte[] mac = DECODER.decode(sessionId.substring(separator + 1));
+            if (!MessageDigest.isEqual(mac, this.sign(body))) {
+                sessionMisses.increment();
+                throw new SessionException.InvalidSessionException(sessionId);
+            }
+
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(body));
+            if (payload.readByte() != TOKEN_VERSION) {
+                sessionMisses.increment();
+                throw new SessionException.InvalidSessionException(sessionId);
+            }
+            payload.readLong();
+            long expirationTime = payload.readLong();
+
+            UserModel user = new UserModel();
+            user.setId(emptyToNull(payload.readUTF()));
+            user.setUsername(emptyToNull(payload.readUTF()));
+            user.setEmail(emptyToNull(payload.readUTF()));
+            user.setRole(emptyToNull(payload.readUTF()));
+            // The decoder accepts more than one spelling of the last character, so revocations are keyed
+            // by the MAC encoded again instead of the text that was sent
+            return new SignedToken(user, expirationTime, mac, ENCODER.encodeToString(mac));
+        } catch (IllegalArgumentException | IOException e) {
+            sessionMisses.increment();
+            throw new SessionException.InvalidSessionException(sessionId);
+        }
+    }
+
+    private byte[] sign(byte[] body) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = this.newMac();
+        }
+        try {
+            return mac.doFinal(body);
+        } finally {
+            macs.offer(mac);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long sessionMaxAgeMillis() {
+        return sessionMaxAgeMinutes * 60000;
+    }
+
+    private static String valueOf(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static class SignedToken {
+        final UserModel user;
+        final long expirationTime;
+        final byte[] mac;
+        /**
+         * Canonical encoding of the MAC, the key of the revocation list.
+         */
+        final String signature;
+
+        SignedToken(UserModel user, long expirationTime, byte[] mac, String signature) {
+            this.user = user;
+            this.expirationTime = expirationTime;
+            this.mac = mac;
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * Bloom filter over token MACs, about 1% false positives at its capacity. The MAC is already
+     * uniformly distributed, so its first two words are used as the two base hashes.
+     */
+    static class RevocationFilter {
+        private static final int HASHES = 7;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+
+        RevocationFilter(int capacity) {
+            long words = Math.max(1, ((long) capacity * 10 + 63) / 64);
+            this.bits = new AtomicLongArray((int) Math.min(words, Integer.MAX_VALUE));
+            this.bitCount = (long) bits.length() * 64;
+        }
+
+        void add(byte[] mac) {
+            ByteBuffer buffer = ByteBuffer.wrap(mac);
+            long hash1 = buffer.getLong(0);
+            long hash2 = buffer.getLong(8);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(byte[] mac) {
+            if (mac.length < 16) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(mac);
+            long hash1 = buffer.getLong(0);
+            long hash2 = buffer.getLong(8);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package cvds.todo.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import cvds.todo.backend.model.TaskModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Local cache of the task reads of each user: the list of all the tasks, single tasks and the
+ * version of the list. It is bounded by weight, one unit per task, and evicts with the
+ * W-TinyLFU policy of Caffeine. TaskService invalidates the entries of a user on each of its
+ * writes; writes made by other instances are only seen once the entries expire, or right away
+ * when the change stream is enabled, so deployments that need strict reads can disable it.
+ * Cached tasks are shared between requests and must not be modified.
+ * <p>
+ * The ids of the single tasks cached for each user are indexed, so forgetting a user only
+ * touches the entries of that user instead of scanning the whole cache.
+ */
+@Component
+public class TaskCache {
+    private static final String ALL_TASKS = "all";
+    private static final String VERSION = "version";
+    private static final String TASK = "task";
+
+    private final Cache<Key, Object> cache;
+    private final Map<String, Set<String>> cachedTaskIds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TaskCache(MeterRegistry meterRegistry,
+                     @Value("${todo.tasks.cache.enabled:true}") boolean enabled,
+                     @Value("${todo.tasks.cache.max-tasks:100000}") long maxTasks,
+                     @Value("${todo.tasks.cache.ttl-ms:30000}") long ttlMillis) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxTasks)
+                .weigher((Key key, Object value) -> value instanceof List<?> tasks ? tasks.size() + 1 : 1)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .evictionListener((Key key, Object value, RemovalCause cause) -> {
+                    if (key != null && TASK.equals(key.kind())) {
+                        this.unindex(key.userId(), key.taskId());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tasks");
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TaskModel> getAllTasks(String userId, Supplier<List<TaskModel>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        return (List<TaskModel>) cache.get(new Key(userId, ALL_TASKS, null), key -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * @return The task, or null when the loader does not find it; missing tasks are not cached.
+     */
+    public TaskModel getTask(String userId, String taskId, Supplier<TaskModel> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        return (TaskModel) cache.get(new Key(userId, TASK, taskId), key -> {
+            // Indexed before loading, so a concurrent invalidateUser either sees the id or runs first
+            cachedTaskIds.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(taskId);
+            TaskModel task = loader.get();
+            if (task == null) {
+                this.unindex(userId, taskId);
+            }
+            return task;
+        });
+    }
+
+    public String getVersion(String userId, Supplier<String> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        return (String) cache.get(new Key(userId, VERSION, null), key -> loader.get());
+    }
+
+    /**
+     * Forgets the list and version of the user and the given tasks, after they were written.
+     */
+    public void invalidate(String userId, String... taskIds) {
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(new Key(userId, ALL_TASKS, null));
+        cache.invalidate(new Key(userId, VERSION, null));
+        for (String taskId : taskIds) {
+            cache.invalidate(new Key(userId, TASK, taskId));
+            this.unindex(userId, taskId);
+        }
+    }
+
+    /**
+     * Forgets every entry of the user, after a write that touched an unknown set of its tasks.
+     */
+    public void invalidateUser(String userId) {
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(new Key(userId, ALL_TASKS, null));
+        cache.invalidate(new Key(userId, VERSION, null));
+        Set<String> taskIds = cachedTaskIds.remove(userId);
+        if (taskIds != null) {
+            for (String taskId : taskIds) {
+                cache.invalidate(new Key(userId, TASK, taskId));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    private void unindex(String userId, String taskId) {
+        cachedTaskIds.computeIfPresent(userId, (id, taskIds) -> {
+            taskIds.remove(taskId);
+            return taskIds.isEmpty() ? null : taskIds;
+        });
+    }
+
+    private record Key(String userId, String kind, String taskId) {
+    }
+}
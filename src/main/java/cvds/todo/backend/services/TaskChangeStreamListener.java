@@ -0,0 +1,90 @@
+package cvds.todo.backend.services;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Single subscriber per instance to the MongoDB change streams of tasks and tombstones, so the
+ * task stream also carries the changes made on other instances. Deleted tasks are no longer
+ * readable, so deletions come from the tombstone written next to them, which has the owner.
+ * The changes also invalidate the task cache of every owner, so writes made on other instances
+ * are read without waiting for the cache entries to expire.
+ * Change streams need a replica set, such as MongoDB Atlas.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.tasks.stream.source", havingValue = "change-stream")
+public class TaskChangeStreamListener {
+    private final MongoTemplate mongoTemplate;
+    private final TaskEventService taskEventService;
+    private final TaskCache taskCache;
+    private final MessageListenerContainer container;
+
+    public TaskChangeStreamListener(MongoTemplate mongoTemplate, TaskEventService taskEventService, TaskCache taskCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskEventService = taskEventService;
+        this.taskCache = taskCache;
+        this.container = new DefaultMessageListenerContainer(mongoTemplate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        container.register(ChangeStreamRequest.builder(this::onTaskChange)
+                .collection(mongoTemplate.getCollectionName(TaskModel.class))
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType").in("insert", "update", "replace"))))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build(), TaskModel.class);
+        container.register(ChangeStreamRequest.builder(this::onTombstone)
+                .collection(mongoTemplate.getCollectionName(TaskTombstoneModel.class))
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType").is("insert"))))
+                .build(), TaskTombstoneModel.class);
+        container.start();
+    }
+
+    void onTaskChange(Message<ChangeStreamDocument<Document>, TaskModel> message) {
+        TaskModel task = message.getBody();
+        if (task == null || task.getOwnerIds() == null) {
+            return;
+        }
+        task.getOwnerIds().forEach(ownerId -> taskCache.invalidate(ownerId, task.getId()));
+        TaskEventType type = message.getRaw().getOperationType() == OperationType.INSERT ? TaskEventType.CREATED : TaskEventType.UPDATED;
+        taskEventService.dispatch(task.getOwnerIds(), type, task.getId(), task);
+    }
+
+    void onTombstone(Message<ChangeStreamDocument<Document>, TaskTombstoneModel> message) {
+        TaskTombstoneModel tombstone = message.getBody();
+        if (tombstone == null) {
+            return;
+        }
+        if (tombstone.isReset()) {
+            taskCache.invalidateUser(tombstone.getOwnerId());
+        } else {
+            taskCache.invalidate(tombstone.getOwnerId(), tombstone.getTaskId());
+        }
+        TaskEventType type = tombstone.isReset() ? TaskEventType.RESYNC : TaskEventType.DELETED;
+        taskEventService.dispatch(List.of(tombstone.getOwnerId()), type, tombstone.getTaskId(), null);
+    }
+
+    @PreDestroy
+    public void stop() {
+        container.stop();
+    }
+}
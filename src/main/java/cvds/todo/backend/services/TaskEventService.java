@@ -0,0 +1,245 @@
+package cvds.todo.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskEventModel;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.UserModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes task changes to the clients connected to GET /tasks/stream.
+ * Connections are async requests, so an idle one holds no thread. Every event is serialized once
+ * and queued in a bounded buffer per connection, which a small sender pool drains; a client that
+ * lets its buffer fill up is disconnected, and is expected to reconnect and catch up with
+ * GET /tasks/changes. With todo.tasks.stream.source=local the events are the writes made by this
+ * instance; with change-stream they come from TaskChangeStreamListener and cover every instance.
+ */
+@Service
+public class TaskEventService {
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventService.class);
+
+    private final Map<String, Set<TaskStream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor sender;
+    private final boolean localEvents;
+    private final int bufferSize;
+    private final int maxStreamsPerUser;
+    private final long timeoutMillis;
+    private final Counter dropped;
+
+    @Autowired
+    public TaskEventService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${todo.tasks.stream.source:local}") String source,
+                            @Value("${todo.tasks.stream.sender-threads:2}") int senderThreads,
+                            @Value("${todo.tasks.stream.buffer-size:64}") int bufferSize,
+                            @Value("${todo.tasks.stream.max-per-user:5}") int maxStreamsPerUser,
+                            @Value("${todo.tasks.stream.timeout-ms:1800000}") long timeoutMillis) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.objectMapper = objectMapper;
+        this.localEvents = "local".equals(source);
+        this.bufferSize = bufferSize;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.timeoutMillis = timeoutMillis;
+        // A stream has at most one drain queued at a time, so the queue is bounded by the connections
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "task-events-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.dropped = Counter.builder("tasks.stream.dropped")
+                .description("Task streams closed because the client did not read its events fast enough")
+                .register(meterRegistry);
+        Gauge.builder("tasks.stream.connections", connections, AtomicInteger::get)
+                .description("Clients connected to the task stream")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the task changes of the user.
+     *
+     * @throws TaskException if the user already has the maximum number of streams open.
+     */
+    public SseEmitter subscribe(UserModel user) throws TaskException {
+        SseEmitter emitter = this.createEmitter(timeoutMillis);
+        TaskStream stream = new TaskStream(user.getId(), emitter);
+
+        Set<TaskStream> userStreams = streams.compute(user.getId(), (id, current) -> {
+            Set<TaskStream> open = current == null ? ConcurrentHashMap.newKeySet() : current;
+            if (open.size() < maxStreamsPerUser) {
+                open.add(stream);
+            }
+            return open;
+        });
+        if (!userStreams.contains(stream)) {
+            throw new TaskException("Too many task streams open, close one and try again", 429);
+        }
+        connections.incrementAndGet();
+
+        emitter.onCompletion(() -> this.remove(stream));
+        emitter.onTimeout(() -> this.remove(stream));
+        emitter.onError(error -> this.remove(stream));
+        // The first event sends the response headers, so the client knows the stream is open
+        stream.offer(SseEmitter.event().comment("connected").build());
+        return emitter;
+    }
+
+    /**
+     * Publishes a change made by this instance. Ignored when the events come from the change stream.
+     */
+    public void publish(String ownerId, TaskEventType type, String taskId, TaskModel task) {
+        if (localEvents) {
+            this.dispatch(List.of(ownerId), type, taskId, task);
+        }
+    }
+
+    /**
+     * Sends a change to every stream of the owners of the task. Nothing is serialized when none of them is connected.
+     */
+    public void dispatch(Collection<String> ownerIds, TaskEventType type, String taskId, TaskModel task) {
+        List<Set<TaskStream>> targets = ownerIds.stream().map(streams::get).filter(Objects::nonNull).toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Set<DataWithMediaType> event;
+        try {
+            String data = objectMapper.writeValueAsString(new TaskEventModel(type, taskId, task, LocalDateTime.now()));
+            event = SseEmitter.event().name(type.name().toLowerCase()).data(data, MediaType.APPLICATION_JSON).build();
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize the {} event of task {}: {}", type, taskId, e.getMessage());
+            return;
+        }
+        targets.forEach(userStreams -> userStreams.forEach(stream -> stream.offer(event)));
+    }
+
+    /**
+     * Sends a comment to every stream, so connections closed by the client or a proxy are detected.
+     */
+    @Scheduled(fixedDelayString = "${todo.tasks.stream.heartbeat-ms:30000}")
+    public void sendHeartbeat() {
+        Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("ping").build();
+        streams.values().forEach(userStreams -> userStreams.forEach(stream -> stream.offer(heartbeat)));
+    }
+
+    protected SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupt the sends in progress first, they hold the locks of their emitters
+        sender.shutdownNow();
+        streams.values().forEach(userStreams -> userStreams.forEach(stream -> stream.emitter.complete()));
+    }
+
+    private void remove(TaskStream stream) {
+        if (stream.closed.compareAndSet(false, true)) {
+            streams.computeIfPresent(stream.ownerId, (id, open) -> {
+                open.remove(stream);
+                return open.isEmpty() ? null : open;
+            });
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * One connected client: its pending events and whether a sender thread is writing them.
+     */
+    private final class TaskStream {
+        private final String ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private TaskStream(String ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<DataWithMediaType> event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                dropped.increment();
+                logger.debug("Closing a task stream of user {}, its client is too slow", ownerId);
+                remove(this);
+            }
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Sending and completing lock the emitter, so a dropped stream is completed here, after
+         * the send in progress, and never by the thread that publishes the event.
+         */
+        private void drain() {
+            try {
+                Set<DataWithMediaType> event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+                if (closed.get()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container reports it through onError as well
+                remove(this);
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get() && !buffer.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.enums.Difficulty;
+import cvds.todo.backend.model.TaskModel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Generates synthetic tasks for capacity tests. Tasks are produced in chunks, each one from its
+ * own random generator seeded by the seed of the run and the chunk number, so a seed always
+ * gives the same tasks whatever the number of threads. Every worker holds a single chunk at a
+ * time, which bounds the memory of a run to threads x chunk size tasks.
+ */
+@Component
+public class TaskGenerator {
+    private static final int[] PRIORITY_WEIGHTS = {10, 25, 35, 20, 10};
+    private static final Difficulty[] DIFFICULTIES = {Difficulty.LOW, Difficulty.MEDIUM, Difficulty.HIGH};
+    private static final int[] DIFFICULTY_WEIGHTS = {45, 40, 15};
+    private static final long CREATED_WITHIN_SECONDS = 90L * 24 * 60 * 60;
+    private static final double MEAN_DEADLINE_SECONDS = 10.0 * 24 * 60 * 60;
+    private static final long MIN_DEADLINE_SECONDS = 60 * 60;
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final int chunkSize;
+
+    @Autowired
+    public TaskGenerator(@Value("${todo.tasks.generator.threads:0}") int threads,
+                         @Value("${todo.tasks.generator.chunk-size:1000}") int chunkSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        // The queue is unbounded because each run queues at most one worker per thread and
+        // runs are already bounded by the queue of TaskJobService
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "task-generator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Receives every generated chunk; called concurrently from the generator threads.
+     */
+    @FunctionalInterface
+    public interface ChunkWriter {
+        void write(List<TaskModel> tasks) throws Exception;
+    }
+
+    /**
+     * Generates count tasks in parallel and hands them to the writer chunk by chunk.
+     *
+     * @param progress Receives the number of tasks of each chunk once it was written.
+     * @return The number of tasks generated.
+     * @throws ExecutionException if the writer failed; the remaining chunks are not generated.
+     */
+    public long generate(String ownerId, long count, long seed, ChunkWriter writer, LongConsumer progress)
+            throws ExecutionException, InterruptedException {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long chunks = (count + chunkSize - 1) / chunkSize;
+        AtomicLong nextChunk = new AtomicLong();
+        Callable<Void> worker = () -> {
+            long chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                long from = chunk * chunkSize;
+                List<TaskModel> tasks = this.generateChunk(ownerId, seed, chunk, from, Math.min(count, from + chunkSize), now);
+                try {
+                    writer.write(tasks);
+                } catch (Exception e) {
+                    nextChunk.set(chunks);
+                    throw e;
+                }
+                progress.accept(tasks.size());
+            }
+            return null;
+        };
+
+        List<Future<Void>> workers = new ArrayList<>();
+        for (long i = 0; i < Math.min(threads, chunks); i++) {
+            workers.add(executor.submit(worker));
+        }
+        try {
+            for (Future<Void> future : workers) {
+                future.get();
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            nextChunk.set(chunks);
+            workers.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return count;
+    }
+
+    /**
+     * Generates the tasks from index from (inclusive) to index to (exclusive) of a run.
+     */
+    public List<TaskModel> generateChunk(String ownerId, long seed, long chunk, long from, long to, LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(chunkSeed(seed, chunk));
+        List<TaskModel> tasks = new ArrayList<>((int) (to - from));
+        for (long index = from; index < to; index++) {
+            tasks.add(this.generateTask(random, ownerId, index, now));
+        }
+        return tasks;
+    }
+
+    private TaskModel generateTask(SplittableRandom random, String ownerId, long index, LocalDateTime now) {
+        TaskModel task = new TaskModel();
+        // Random version 4 UUID from the seeded generator, instead of the SecureRandom of UUID.randomUUID()
+        task.setId(new UUID((random.nextLong() & ~0xF000L) | 0x4000L,
+                (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L).toString());
+        task.setName("Task: " + (index + 1));
+        task.setDescription("Description for Task " + (index + 1));
+        task.setPriority(weightedIndex(random, PRIORITY_WEIGHTS) + 1);
+        task.setDifficulty(DIFFICULTIES[weightedIndex(random, DIFFICULTY_WEIGHTS)].name());
+
+        // Created uniformly over the last 90 days, with deadlines exponentially distributed after it
+        LocalDateTime createdAt = now.minusSeconds(random.nextLong(CREATED_WITHIN_SECONDS));
+        long deadlineSeconds = (long) (-Math.log(1 - random.nextDouble()) * MEAN_DEADLINE_SECONDS);
+        LocalDateTime deadline = createdAt.plusSeconds(Math.max(MIN_DEADLINE_SECONDS, deadlineSeconds));
+        boolean overdue = deadline.isBefore(now);
+        task.setCreatedAt(createdAt);
+        task.setDeadline(deadline);
+        task.setDone(random.nextInt(100) < (overdue ? 85 : 25));
+        long sinceCreated = ChronoUnit.SECONDS.between(createdAt, now);
+        task.setUpdatedAt(sinceCreated > 0 ? createdAt.plusSeconds(random.nextLong(sinceCreated)) : createdAt);
+
+        task.setOwnerIds(Collections.singletonList(ownerId));
+        return task;
+    }
+
+    /**
+     * Hashes the seed of the run with the chunk number. Consecutive seeds of SplittableRandom
+     * would give overlapping sequences, so the chunks could share tasks.
+     */
+    private static long chunkSeed(long seed, long chunk) {
+        long value = seed ^ (chunk * 0xC2B2AE3D27D4EB4FL);
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static int weightedIndex(SplittableRandom random, int[] weights) {
+        int value = random.nextInt(100);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,74 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates synthetic tasks from the command line and exits, e.g.
+ * java -jar backend.jar --spring.main.web-application-type=none
+ * --todo.tasks.generator.cli.username=loadtest --todo.tasks.generator.cli.count=1000000
+ * --todo.tasks.generator.cli.seed=42
+ */
+@Component
+@ConditionalOnProperty(name = "todo.tasks.generator.cli.username")
+public class TaskGeneratorRunner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(TaskGeneratorRunner.class);
+
+    private final TaskService taskService;
+    private final UserRepository userRepository;
+    private final ConfigurableApplicationContext context;
+    private final String username;
+    private final long count;
+    private final long seed;
+
+    public TaskGeneratorRunner(TaskService taskService, UserRepository userRepository, ConfigurableApplicationContext context,
+                               @Value("${todo.tasks.generator.cli.username}") String username,
+                               @Value("${todo.tasks.generator.cli.count:100000}") long count,
+                               @Value("${todo.tasks.generator.cli.seed:42}") long seed) {
+        this.taskService = taskService;
+        this.userRepository = userRepository;
+        this.context = context;
+        this.username = username;
+        this.count = count;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(String... args) {
+        int exitCode = 0;
+        try {
+            UserModel user = userRepository.findByUsername(username);
+            if (user == null) {
+                throw new IllegalArgumentException("User " + username + " does not exist");
+            }
+
+            AtomicLong generated = new AtomicLong();
+            long step = Math.max(1, count / 10);
+            long start = System.nanoTime();
+            taskService.generateTasks(user, count, seed, chunk -> {
+                long total = generated.addAndGet(chunk);
+                if (total / step != (total - chunk) / step) {
+                    logger.info("Generated {} of {} tasks", total, count);
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            logger.info("Generated {} tasks for {} with seed {} in {} s ({} tasks/s)", count, username, seed,
+                    String.format("%.1f", seconds), String.format("%.0f", count / seconds));
+        } catch (Exception e) {
+            logger.error("Could not generate the tasks: {}", e.getMessage());
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
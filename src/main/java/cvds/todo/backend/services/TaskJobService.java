@@ -0,0 +1,108 @@
+package cvds.todo.backend.services;
+
+import cvds.todo.backend.enums.JobStatus;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskJobModel;
+import cvds.todo.backend.model.UserModel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs long task operations in background and keeps their progress so clients can poll it.
+ * Jobs live in memory and are forgotten some time after they finish.
+ */
+@Service
+public class TaskJobService {
+    private static final Logger logger = LoggerFactory.getLogger(TaskJobService.class);
+
+    private final Map<String, TaskJobModel> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final long retentionMillis;
+
+    @Autowired
+    public TaskJobService(@Value("${todo.jobs.threads:2}") int threads,
+                          @Value("${todo.jobs.queue-capacity:100}") int queueCapacity,
+                          @Value("${todo.jobs.retention-ms:3600000}") long retentionMillis) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.retentionMillis = retentionMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "task-jobs-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Work done by a job. It reports its progress through the job it receives.
+     */
+    @FunctionalInterface
+    public interface JobWork {
+        void run(TaskJobModel job) throws Exception;
+    }
+
+    public TaskJobModel submit(UserModel user, String type, JobWork work) throws TaskException {
+        TaskJobModel job = new TaskJobModel(UUID.randomUUID().toString(), type, user.getId());
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.execute(() -> this.run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new TaskException("Too many background jobs, try again later", 503);
+        }
+        return job;
+    }
+
+    private void run(TaskJobModel job, JobWork work) {
+        JobStatus status = JobStatus.DONE;
+        try {
+            work.run(job);
+        } catch (Exception e) {
+            logger.warn("Job {} of type {} failed: {}", job.getId(), job.getType(), e.getMessage());
+            job.setError(e.getMessage());
+            status = JobStatus.FAILED;
+        }
+        // The status is set last so a client that sees the job finished also sees its end time
+        job.setFinishedAt(LocalDateTime.now());
+        job.setStatus(status);
+    }
+
+    /**
+     * Returns a job of the user. Jobs of other users are reported as not found.
+     */
+    public TaskJobModel getJob(String jobId, UserModel user) throws TaskException {
+        TaskJobModel job = jobs.get(jobId);
+        if (job == null || !job.getOwnerId().equals(user.getId())) {
+            throw new TaskException.TaskJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${todo.jobs.cleanup-interval-ms:60000}")
+    public void removeFinishedJobs() {
+        LocalDateTime limit = LocalDateTime.now().minusNanos(retentionMillis * 1_000_000);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
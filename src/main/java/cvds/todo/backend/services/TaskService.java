@@ -5,35 +5,272 @@ import cvds.todo.backend.exceptions.AppException;
 import cvds.todo.backend.exceptions.TaskException;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.repository.TaskRepository;
+import cvds.todo.backend.repository.TaskTombstoneRepository;
 import cvds.todo.backend.interfeces.TasksService;
 import cvds.todo.backend.enums.Difficulty;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.enums.TaskOperation;
+import cvds.todo.backend.model.TaskBatchOperationModel;
+import cvds.todo.backend.model.TaskBatchResultModel;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskJobModel;
 import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskPageModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
+
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 //TODO : renew cookie
 
 @Service
 public class TaskService implements TasksService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 500;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final int SYNC_OVERLAP_SECONDS = 5;
+    public static final long MAX_GENERATED_TASKS = 10_000_000;
+
+    /**
+     * Fields a task query can be sorted by, each one is the second key of an owner index.
+     */
+    private static final Set<String> SORTABLE_FIELDS = Set.of("done", "priority", "deadline", "createdAt", "updatedAt");
+
+    /**
+     * Fields a client can ask for with a projection. The owners are never returned.
+     */
+    public static final Set<String> PROJECTABLE_FIELDS = Set.of(
+            "id", "name", "description", "difficulty", "priority", "deadline", "createdAt", "updatedAt", "done");
 
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskJobService taskJobService;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private TaskEventService taskEventService;
+
+    @Autowired
+    private TaskCache taskCache;
+
+    @Autowired
+    private TaskGenerator taskGenerator;
+
     @Override
     public List<TaskModel> getAllTasks(UserModel user) throws AppException {
-        return taskRepository.findByOwnerIdsContaining(user.getId());
+        return taskCache.getAllTasks(user.getId(), () -> taskRepository.findByOwnerIdsContaining(user.getId()));
+    }
+
+    /**
+     * Groups the tasks of the user on the owner index: the count changes on creates and deletes,
+     * the sum of versions on every update, and the last update date covers a delete followed by a create.
+     */
+    @Override
+    public String getTasksVersion(UserModel user) throws AppException {
+        return taskCache.getVersion(user.getId(), () -> this.aggregateTasksVersion(user));
+    }
+
+    private String aggregateTasksVersion(UserModel user) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("ownerIds").is(user.getId())),
+                Aggregation.group().count().as("count").sum("version").as("versions").max("updatedAt").as("lastUpdatedAt"));
+        Document version = mongoTemplate.aggregate(aggregation, TaskModel.class, Document.class).getUniqueMappedResult();
+        if (version == null) {
+            return "0";
+        }
+
+        Date lastUpdatedAt = version.getDate("lastUpdatedAt");
+        return ((Number) version.get("count")).longValue() + "-"
+                + ((Number) version.get("versions")).longValue() + "-"
+                + (lastUpdatedAt == null ? 0 : lastUpdatedAt.getTime());
+    }
+
+    /**
+     * The watermark returned is taken SYNC_OVERLAP_SECONDS before the reads, so a write that was
+     * stamped before the reads but committed after them is sent again in the next sync instead of lost.
+     */
+    @Override
+    public TaskChangesModel getChanges(UserModel user, LocalDateTime since) throws AppException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime watermark = now.minusSeconds(SYNC_OVERLAP_SECONDS);
+        if (since == null || since.isBefore(now.minusDays(TaskTombstoneModel.RETENTION_DAYS))) {
+            return new TaskChangesModel(this.getAllTasks(user), Collections.emptyList(), watermark, true);
+        }
+
+        List<TaskTombstoneModel> tombstones = taskTombstoneRepository.findByOwnerIdAndDeletedAtAfter(user.getId(), since);
+        if (tombstones.stream().anyMatch(TaskTombstoneModel::isReset)) {
+            return new TaskChangesModel(this.getAllTasks(user), Collections.emptyList(), watermark, true);
+        }
+        List<String> deletedIds = tombstones.stream().map(TaskTombstoneModel::getTaskId).distinct().toList();
+        List<TaskModel> tasks = taskRepository.findByOwnerIdsContainingAndUpdatedAtAfter(user.getId(), since);
+        return new TaskChangesModel(tasks, deletedIds, watermark, false);
+    }
+
+    @Override
+    public TaskPageModel getTasksPage(UserModel user, String cursor, int size) throws AppException {
+        if (size < 1 || MAX_PAGE_SIZE < size) {
+            throw new TaskException.TaskInvalidValueException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Criteria criteria = Criteria.where("ownerIds").is(user.getId());
+        if (cursor != null && !cursor.isEmpty()) {
+            criteria = criteria.and("_id").gt(this.decodeCursor(cursor));
+        }
+
+        // One extra element tells if there is a next page without running a count
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(size + 1);
+        query.fields().exclude("ownerIds");
+
+        List<TaskModel> tasks = mongoTemplate.find(query, TaskModel.class);
+        if (tasks.size() <= size) {
+            return new TaskPageModel(tasks, null);
+        }
+
+        List<TaskModel> page = new ArrayList<>(tasks.subList(0, size));
+        return new TaskPageModel(page, this.encodeCursor(page.get(size - 1).getId()));
+    }
+
+    @Override
+    public Stream<TaskModel> streamAllTasks(UserModel user) throws AppException {
+        Query query = new Query(Criteria.where("ownerIds").is(user.getId()))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        query.fields().exclude("ownerIds");
+
+        return mongoTemplate.stream(query, TaskModel.class);
+    }
+
+    @Override
+    public List<TaskModel> findTasks(UserModel user, TaskQueryModel taskQuery) throws AppException {
+        return mongoTemplate.find(this.buildTaskQuery(user, taskQuery), TaskModel.class);
+    }
+
+    /**
+     * Translates a task query into a MongoDB query over the tasks of the user, shared with the reactive API.
+     */
+    Query buildTaskQuery(UserModel user, TaskQueryModel taskQuery) throws TaskException {
+        Criteria criteria = Criteria.where("ownerIds").is(user.getId());
+
+        if (taskQuery.getDone() != null) {
+            criteria = criteria.and("done").is(taskQuery.getDone());
+        }
+        if (taskQuery.getPriorityMin() != null || taskQuery.getPriorityMax() != null) {
+            criteria = criteria.and("priority");
+            if (taskQuery.getPriorityMin() != null) {
+                criteria = criteria.gte(taskQuery.getPriorityMin());
+            }
+            if (taskQuery.getPriorityMax() != null) {
+                criteria = criteria.lte(taskQuery.getPriorityMax());
+            }
+        }
+        if (taskQuery.getDeadlineBefore() != null || taskQuery.getDeadlineAfter() != null) {
+            criteria = criteria.and("deadline");
+            if (taskQuery.getDeadlineAfter() != null) {
+                criteria = criteria.gt(taskQuery.getDeadlineAfter());
+            }
+            if (taskQuery.getDeadlineBefore() != null) {
+                criteria = criteria.lt(taskQuery.getDeadlineBefore());
+            }
+        }
+        if (taskQuery.getCreatedAfter() != null) {
+            criteria = criteria.and("createdAt").gt(taskQuery.getCreatedAfter());
+        }
+        if (taskQuery.getUpdatedAfter() != null) {
+            criteria = criteria.and("updatedAt").gt(taskQuery.getUpdatedAfter());
+        }
+
+        Query query = new Query(criteria);
+        if (taskQuery.getSort() != null && !taskQuery.getSort().isEmpty()) {
+            query.with(this.parseSort(taskQuery.getSort()));
+        }
+        if (taskQuery.getLimit() != null) {
+            if (taskQuery.getLimit() < 1 || MAX_PAGE_SIZE < taskQuery.getLimit()) {
+                throw new TaskException.TaskInvalidValueException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            query.limit(taskQuery.getLimit());
+        }
+        this.applyProjection(query, taskQuery.getFieldList());
+        return query;
+    }
+
+    /**
+     * Reads only the requested fields from the database, or every field but the owners when
+     * none is requested. Fields left out keep their default value in the returned tasks.
+     */
+    private void applyProjection(Query query, List<String> fields) throws TaskException {
+        if (fields.isEmpty()) {
+            query.fields().exclude("ownerIds");
+            return;
+        }
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new TaskException.TaskInvalidValueException("Fields must be among " + PROJECTABLE_FIELDS);
+            }
+            query.fields().include(field.equals("id") ? "_id" : field);
+        }
+        if (!fields.contains("id")) {
+            query.fields().exclude("_id");
+        }
+    }
+
+    /**
+     * Parses "field" or "-field". The ID breaks ties so the order is stable between calls.
+     */
+    private Sort parseSort(String sort) throws TaskException {
+        boolean descending = sort.startsWith("-");
+        String field = descending ? sort.substring(1) : sort;
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new TaskException.TaskInvalidValueException("Sort must be one of " + SORTABLE_FIELDS + ", optionally prefixed with -");
+        }
+        return Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, field).and(Sort.by("_id"));
+    }
+
+    private String encodeCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) throws TaskException {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new TaskException.TaskInvalidValueException("Page cursor is invalid");
+        }
     }
 
     @Override
     public TaskModel getTaskById(String id, UserModel user) throws AppException {
-        TaskModel result = taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), id);
+        TaskModel result = taskCache.getTask(user.getId(), id, () -> taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), id));
 
         if (result != null) {
             return result;
@@ -55,41 +292,249 @@ public class TaskService implements TasksService {
         task.setCreatedAt(now);
         task.setUpdatedAt(now);
 
-        return taskRepository.insert(task);
+        TaskModel created = taskRepository.insert(task);
+        taskCache.invalidate(user.getId());
+        taskEventService.publish(user.getId(), TaskEventType.CREATED, created.getId(), created);
+        return created;
     }
 
     @Override
     public TaskModel updateTask(String id, TaskModel task, UserModel user) throws AppException {
+        return this.updateTask(id, task, user, null);
+    }
+
+    /**
+     * The patch becomes a single $set of its fields, applied with findAndModify on the task of the
+     * user, so concurrent updates of other fields are not overwritten and the read and the write
+     * are one atomic round trip. The version is part of the filter when the client sends it.
+     */
+    @Override
+    public TaskModel updateTask(String id, TaskModel task, UserModel user, Long expectedVersion) throws AppException {
+        this.isValidPatch(task);
 
-        Optional<TaskModel> existingTask = taskRepository.findById(id);
+        Criteria owned = Criteria.where("_id").is(id).and("ownerIds").is(user.getId());
+        Query query = new Query(owned);
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
+        }
+        query.fields().exclude("ownerIds");
+
+        TaskModel updated = mongoTemplate.findAndModify(query, this.patchUpdate(task, LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), TaskModel.class);
+        taskCache.invalidate(user.getId(), id);
+        if (updated != null) {
+            taskEventService.publish(user.getId(), TaskEventType.UPDATED, id, updated);
+            return updated;
+        }
+        if (expectedVersion != null && mongoTemplate.exists(new Query(owned), TaskModel.class)) {
+            throw new TaskException.TaskVersionMismatchException(id);
+        }
+        throw new TaskException.TaskNotFoundException(id);
+    }
 
-        if (existingTask.isPresent()) {
-            TaskModel taskToUpdate = existingTask.get();
+    /**
+     * Builds the $set of a partial update with the same rules as {@link #mergeTask}.
+     */
+    Update patchUpdate(TaskModel task, LocalDateTime now) {
+        Update update = new Update();
+        if (task.getName() != null) {
+            update.set("name", task.getName());
+        }
+        if (task.getDescription() != null) {
+            update.set("description", task.getDescription());
+        }
+        if (task.getDeadline() != null) {
+            update.set("deadline", task.getDeadline());
+        }
+        if (task.getPriority() != 0) {
+            update.set("priority", task.getPriority());
+        }
+        if (task.getDifficulty() != null) {
+            update.set("difficulty", task.getDifficulty());
+        }
+        return update.set("done", task.isDone())
+                .set("updatedAt", now)
+                .inc("version", 1);
+    }
 
-            taskToUpdate.setName(task.getName() == null ? taskToUpdate.getName() : task.getName());
-            taskToUpdate.setDescription(task.getDescription() == null ? taskToUpdate.getDescription() : task.getDescription());
-            taskToUpdate.setDeadline(task.getDeadline() == null ? taskToUpdate.getDeadline() : task.getDeadline());
-            taskToUpdate.setPriority(task.getPriority() == 0 ? taskToUpdate.getPriority() : task.getPriority());
-            taskToUpdate.setDifficulty(task.getDifficulty() == null ? taskToUpdate.getDifficulty() : task.getDifficulty());
-            taskToUpdate.setDone(task.isDone());
+    /**
+     * Applies a partial update: fields left empty in the patch keep their current value, except
+     * done which is always taken from the patch.
+     */
+    private TaskModel mergeTask(TaskModel taskToUpdate, TaskModel task, LocalDateTime now) {
+        taskToUpdate.setName(task.getName() == null ? taskToUpdate.getName() : task.getName());
+        taskToUpdate.setDescription(task.getDescription() == null ? taskToUpdate.getDescription() : task.getDescription());
+        taskToUpdate.setDeadline(task.getDeadline() == null ? taskToUpdate.getDeadline() : task.getDeadline());
+        taskToUpdate.setPriority(task.getPriority() == 0 ? taskToUpdate.getPriority() : task.getPriority());
+        taskToUpdate.setDifficulty(task.getDifficulty() == null ? taskToUpdate.getDifficulty() : task.getDifficulty());
+        taskToUpdate.setDone(task.isDone());
+
+        taskToUpdate.setUpdatedAt(now);
+        return taskToUpdate;
+    }
 
-            taskToUpdate.setUpdatedAt(LocalDateTime.now());
-            this.isValidTask(taskToUpdate);
+    /**
+     * Every operation is checked first; the valid ones go to MongoDB in one unordered bulk write,
+     * so a failing operation does not stop the others. Updates and deletes only touch tasks
+     * owned by the user, which are loaded with a single query to merge and validate the updates.
+     */
+    @Override
+    public List<TaskBatchResultModel> runBatch(UserModel user, List<TaskBatchOperationModel> operations) throws AppException {
+        if (operations == null || operations.isEmpty() || MAX_BATCH_SIZE < operations.size()) {
+            throw new TaskException.TaskInvalidValueException("Batch must have between 1 and " + MAX_BATCH_SIZE + " operations");
+        }
 
-            this.taskRepository.save(taskToUpdate);
+        TaskBatchResultModel[] results = new TaskBatchResultModel[operations.size()];
+        Map<String, TaskModel> ownedTasks = this.findOwnedTasks(user, operations);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TaskModel.class);
+        List<Integer> queued = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
 
-            return taskToUpdate;
+        for (int i = 0; i < operations.size(); i++) {
+            TaskBatchOperationModel operation = operations.get(i);
+            try {
+                String id = this.queueOperation(bulkOperations, operation, ownedTasks, user, now);
+                results[i] = new TaskBatchResultModel(i, operation.getOp(), id,
+                        TaskOperation.CREATE.name().equalsIgnoreCase(operation.getOp()) ? 201 : 200, null);
+                queued.add(i);
+            } catch (AppException e) {
+                results[i] = new TaskBatchResultModel(i, operation.getOp(), operation.getId(), e.getStatusCode(), e.getMessage());
+            }
         }
 
-        throw new TaskException.TaskNotFoundException(id);
+        if (!queued.isEmpty()) {
+            try {
+                bulkOperations.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    TaskBatchResultModel result = results[queued.get(error.getIndex())];
+                    result.setStatus(error.getCode() == DUPLICATE_KEY_ERROR ? 409 : 500);
+                    result.setError(error.getMessage());
+                }
+            }
+            taskCache.invalidate(user.getId(), Arrays.stream(results).map(TaskBatchResultModel::getId).filter(Objects::nonNull).toArray(String[]::new));
+            this.recordBatchDeletions(user, results);
+            this.publishBatchEvents(user, operations, ownedTasks, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void recordBatchDeletions(UserModel user, TaskBatchResultModel[] results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskTombstoneModel> tombstones = Arrays.stream(results)
+                .filter(result -> result.getStatus() == 200 && TaskOperation.DELETE.name().equalsIgnoreCase(result.getOp()))
+                .map(result -> new TaskTombstoneModel(user.getId(), result.getId(), now))
+                .toList();
+        if (!tombstones.isEmpty()) {
+            taskTombstoneRepository.insert(tombstones);
+        }
+    }
+
+    /**
+     * Creates carry the task sent, updates the owned task merged in place by queueOperation.
+     */
+    private void publishBatchEvents(UserModel user, List<TaskBatchOperationModel> operations,
+                                    Map<String, TaskModel> ownedTasks, TaskBatchResultModel[] results) {
+        for (TaskBatchResultModel result : results) {
+            if (result.getStatus() == 201) {
+                taskEventService.publish(user.getId(), TaskEventType.CREATED, result.getId(), operations.get(result.getIndex()).getTask());
+            } else if (result.getStatus() == 200 && TaskOperation.DELETE.name().equalsIgnoreCase(result.getOp())) {
+                taskEventService.publish(user.getId(), TaskEventType.DELETED, result.getId(), null);
+            } else if (result.getStatus() == 200) {
+                taskEventService.publish(user.getId(), TaskEventType.UPDATED, result.getId(), ownedTasks.get(result.getId()));
+            }
+        }
+    }
+
+    private String queueOperation(BulkOperations bulkOperations, TaskBatchOperationModel operation,
+                                  Map<String, TaskModel> ownedTasks, UserModel user, LocalDateTime now) throws AppException {
+        TaskOperation type;
+        try {
+            type = TaskOperation.valueOf(String.valueOf(operation.getOp()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new TaskException.TaskInvalidValueException("Operation must be create, update or delete");
+        }
+
+        if (type == TaskOperation.CREATE) {
+            TaskModel task = operation.getTask();
+            if (task == null) {
+                throw new TaskException.TaskInvalidValueException("Task is required to create it");
+            }
+            task.setId(UUID.randomUUID().toString());
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            task.setOwnerIds(Collections.singletonList(user.getId()));
+            this.isValidTask(task);
+            bulkOperations.insert(task);
+            return task.getId();
+        }
+
+        TaskModel ownedTask = ownedTasks.get(operation.getId());
+        if (ownedTask == null) {
+            throw new TaskException.TaskNotFoundException(operation.getId());
+        }
+        Query ownedTaskQuery = new Query(Criteria.where("_id").is(operation.getId()).and("ownerIds").is(user.getId()));
+
+        if (type == TaskOperation.DELETE) {
+            bulkOperations.remove(ownedTaskQuery);
+            return operation.getId();
+        }
+
+        if (operation.getTask() == null) {
+            throw new TaskException.TaskInvalidValueException("Task is required to update it");
+        }
+        TaskModel merged = this.mergeTask(ownedTask, operation.getTask(), now);
+        this.isValidTask(merged);
+        bulkOperations.updateOne(ownedTaskQuery, new Update()
+                .set("name", merged.getName())
+                .set("description", merged.getDescription())
+                .set("deadline", merged.getDeadline())
+                .set("priority", merged.getPriority())
+                .set("difficulty", merged.getDifficulty())
+                .set("done", merged.isDone())
+                .set("updatedAt", merged.getUpdatedAt())
+                .inc("version", 1));
+        return operation.getId();
     }
 
+    /**
+     * Loads, in one query, the tasks of the user targeted by the updates and deletes of a batch.
+     */
+    private Map<String, TaskModel> findOwnedTasks(UserModel user, List<TaskBatchOperationModel> operations) {
+        List<String> ids = operations.stream()
+                .filter(operation -> !TaskOperation.CREATE.name().equalsIgnoreCase(operation.getOp()))
+                .map(TaskBatchOperationModel::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Query query = new Query(Criteria.where("ownerIds").is(user.getId()).and("_id").in(ids));
+        query.fields().exclude("ownerIds");
+
+        Map<String, TaskModel> ownedTasks = new HashMap<>();
+        for (TaskModel task : mongoTemplate.find(query, TaskModel.class)) {
+            ownedTasks.put(task.getId(), task);
+        }
+        return ownedTasks;
+    }
+
+    /**
+     * Reads and deletes the task in one findAndRemove, so a concurrent update does not fail the
+     * delete on the version check, then leaves its tombstone for /tasks/changes.
+     */
     @Override
     public TaskModel deleteTask(String id, UserModel user) throws AppException {
-        TaskModel taskToDelete = taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), id);
+        Query query = new Query(Criteria.where("_id").is(id).and("ownerIds").is(user.getId()));
+        query.fields().exclude("ownerIds");
+        TaskModel taskToDelete = mongoTemplate.findAndRemove(query, TaskModel.class);
 
         if (taskToDelete != null) {
-            taskRepository.delete(taskToDelete);
+            taskCache.invalidate(user.getId(), id);
+            taskTombstoneRepository.insert(new TaskTombstoneModel(user.getId(), id, LocalDateTime.now()));
+            taskEventService.publish(user.getId(), TaskEventType.DELETED, id, null);
             return taskToDelete;
         }
 
@@ -98,56 +543,103 @@ public class TaskService implements TasksService {
 
     @Override
     public List<TaskModel> generateExamples(UserModel user) throws AppException {
-        Random random = new Random();
-        int numberOfTasks = random.nextInt(901) + 100;
-        List<TaskModel> tasks = new ArrayList<>();
-
-        for (int i = 0; i < numberOfTasks; i++) {
-            TaskModel task = new TaskModel();
-
-            task.setId(UUID.randomUUID().toString());
-
-            task.setName("Task: " + (i + 1));
-            task.setDescription("Description for Task " + (i + 1));
-            task.setPriority(random.nextInt(5) + 1);
-            task.setDifficulty(String.valueOf(Difficulty.values()[random.nextInt(Difficulty.values().length)]));
-            task.setDone(random.nextBoolean());
-
-            task.setDeadline(this.getRandomDateTime(LocalDate.now().plusDays(-5), LocalTime.now(), 25));
-
-            final LocalDateTime randomDateTime = this.getRandomDateTime(LocalDate.now(), LocalTime.now(), 30);
-            task.setCreatedAt(randomDateTime);
-            task.setUpdatedAt(randomDateTime);
-
-            task.setOwnerIds(Collections.singletonList(user.getId()));
+        int numberOfTasks = ThreadLocalRandom.current().nextInt(901) + 100;
+        List<TaskModel> tasks = taskGenerator.generateChunk(user.getId(), ThreadLocalRandom.current().nextLong(), 0, 0,
+                numberOfTasks, LocalDateTime.now());
 
+        for (TaskModel task : tasks) {
             this.isValidTask(task);
-
-            tasks.add(task);
         }
         this.taskRepository.insert(tasks);
+        // Generated tasks carry past update dates, so clients must resync instead of asking for changes
+        taskCache.invalidate(user.getId());
+        taskTombstoneRepository.insert(TaskTombstoneModel.reset(user.getId(), LocalDateTime.now()));
+        taskEventService.publish(user.getId(), TaskEventType.RESYNC, null, null);
         return tasks;
     }
 
-    public LocalDateTime getRandomDateTime(final LocalDate startDate, final LocalTime startTime, final int daysOfRange) {
-        long minDay = LocalDateTime.of(startDate, startTime).toEpochSecond(ZoneOffset.UTC);
-        long maxDay = LocalDateTime.of(LocalDate.now().plusDays(daysOfRange), startTime).toEpochSecond(ZoneOffset.UTC);
+    @Override
+    public long generateTasks(UserModel user, long count, long seed, LongConsumer progress) throws AppException {
+        this.validateGeneratedCount(count);
+        try {
+            return taskGenerator.generate(user.getId(), count, seed, tasks -> mongoTemplate.insert(tasks, TaskModel.class), progress);
+        } catch (ExecutionException e) {
+            throw new TaskException("Could not generate the tasks: " + e.getCause().getMessage(), 500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskException("Task generation was interrupted", 503);
+        } finally {
+            // Generated tasks carry past update dates, so clients must resync instead of asking for changes
+            taskCache.invalidateUser(user.getId());
+            taskTombstoneRepository.insert(TaskTombstoneModel.reset(user.getId(), LocalDateTime.now()));
+            taskEventService.publish(user.getId(), TaskEventType.RESYNC, null, null);
+        }
+    }
 
-        long randomDay = ThreadLocalRandom.current().nextLong(minDay, maxDay);
-        return LocalDateTime.ofEpochSecond(randomDay, 0, ZoneOffset.UTC);
+    @Override
+    public TaskJobModel generateTasksAsync(UserModel user, long count, long seed) throws AppException {
+        this.validateGeneratedCount(count);
+        return taskJobService.submit(user, "generate", job -> {
+            job.setTotal(count);
+            this.generateTasks(user, count, seed, job::addProcessed);
+        });
     }
 
-    public List<TaskModel> deleteAllTasks(UserModel user) throws AppException {
-        List<TaskModel> tasksDeleted = getAllTasks(user);
-        tasksDeleted.forEach(task -> taskRepository.deleteByIdAndOwnerIdsContaining(user.getId(), task.getId()));
+    private void validateGeneratedCount(long count) throws TaskException {
+        if (count < 1 || count > MAX_GENERATED_TASKS) {
+            throw new TaskException.TaskInvalidValueException("The number of tasks to generate must be between 1 and " + MAX_GENERATED_TASKS);
+        }
+    }
 
-        return tasksDeleted;
+    public long deleteAllTasks(UserModel user) throws AppException {
+        long deleted = taskRepository.deleteByOwnerIdsContaining(user.getId());
+        taskCache.invalidateUser(user.getId());
+        taskTombstoneRepository.insert(TaskTombstoneModel.reset(user.getId(), LocalDateTime.now()));
+        taskEventService.publish(user.getId(), TaskEventType.RESYNC, null, null);
+        return deleted;
+    }
+
+    /**
+     * Deletes the tasks in chunks of IDs read from the owner index, so the job can report how
+     * many tasks are gone while a large account is being emptied.
+     */
+    @Override
+    public TaskJobModel deleteAllTasksAsync(UserModel user) throws AppException {
+        return taskJobService.submit(user, "delete-all", job -> {
+            Criteria owned = Criteria.where("ownerIds").is(user.getId());
+            job.setTotal(mongoTemplate.count(new Query(owned), TaskModel.class));
+
+            while (true) {
+                Query chunk = new Query(owned).limit(DELETE_CHUNK_SIZE);
+                chunk.fields().include("_id");
+                List<String> ids = mongoTemplate.find(chunk, TaskModel.class).stream().map(TaskModel::getId).toList();
+                if (ids.isEmpty()) {
+                    taskCache.invalidateUser(user.getId());
+                    taskTombstoneRepository.insert(TaskTombstoneModel.reset(user.getId(), LocalDateTime.now()));
+                    taskEventService.publish(user.getId(), TaskEventType.RESYNC, null, null);
+                    return;
+                }
+                long deleted = mongoTemplate.remove(new Query(Criteria.where("ownerIds").is(user.getId()).and("_id").in(ids)),
+                        TaskModel.class).getDeletedCount();
+                job.addProcessed(deleted);
+            }
+        });
     }
 
     public void isValidTask(TaskModel task) throws AppException {
         if (task.getName() == null) {
             throw new TaskException.TaskInvalidValueException("Task name is required");
         }
+        this.isValidPatch(task);
+        if (task.getUpdatedAt() != null && task.getCreatedAt() != null && task.getUpdatedAt().isBefore(task.getCreatedAt())) {
+            throw new TaskException.TaskInvalidValueException("Task updated at is before created at!");
+        }
+    }
+
+    /**
+     * Checks the fields a partial update may carry; missing fields are not an error.
+     */
+    void isValidPatch(TaskModel task) throws AppException {
         if (task.getPriority() < 0 || 5 < task.getPriority()) {
             throw new TaskException.TaskInvalidValueException("Task priority invalid value, out of range [0, 1, 2, 3, 4, 5]");
         }
@@ -160,8 +652,5 @@ public class TaskService implements TasksService {
                 throw new TaskException.TaskInvalidValueException("Task difficulty is invalid");
             }
         }
-        if (task.getUpdatedAt() != null && task.getCreatedAt() != null && task.getUpdatedAt().isBefore(task.getCreatedAt())) {
-            throw new TaskException.TaskInvalidValueException("Task updated at is before created at!");
-        }
     }
 }
@@ -5,8 +5,14 @@ import cvds.todo.backend.interfeces.UsersService;
 import cvds.todo.backend.enums.Role;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -14,16 +20,31 @@ import java.util.regex.Pattern;
 
 @Service
 public class UserService implements UsersService {
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UsernameCache usernameCache;
 
     private UserModel createUser(UserModel user) throws UserException {
         this.validateUser(user);
         user.setId(UUID.randomUUID().toString());
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
+        try {
+            userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            // Another registration took the username or email after it was validated
+            throw this.conflict(user, e);
+        }
+        usernameCache.putUser(user.getUsername(), user.getId());
         return user;
     }
 
@@ -45,17 +66,23 @@ public class UserService implements UsersService {
         if (existingUser.isPresent()) {
             UserModel userToUpdate = existingUser.get();
 
+            String previousUsername = userToUpdate.getUsername();
             userToUpdate.setUsername(user.getUsername() == null ? userToUpdate.getUsername() : user.getUsername());
             userToUpdate.setEmail(user.getEmail() == null ? userToUpdate.getEmail() : user.getEmail());
 
             if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-                BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-                userToUpdate.setPassword(passwordEncoder.encode(user.getPassword()));
+                userToUpdate.setPassword(passwordHashingService.encode(user.getPassword()));
             }
 
             userToUpdate.setRole(user.getRole() == null || user.getRole().isEmpty() ? userToUpdate.getRole() : user.getRole());
 
-            userRepository.save(userToUpdate);
+            try {
+                userRepository.save(userToUpdate);
+            } catch (DuplicateKeyException e) {
+                throw this.conflict(userToUpdate, e);
+            }
+            usernameCache.invalidate(previousUsername);
+            usernameCache.invalidate(userToUpdate.getUsername());
             return userToUpdate;
         }
 
@@ -77,22 +104,54 @@ public class UserService implements UsersService {
         return null;
     }
 
+    /**
+     * Unknown usernames are remembered for a while, so repeated attempts with them are rejected
+     * without querying the database.
+     */
     public UserModel loginUser(String username, String password) throws UserException {
+        if (usernameCache.lookup(username) == UsernameCache.Status.MISSING) {
+            throw new UserException.UserNotFoundException(username);
+        }
+
         UserModel userModel = this.userRepository.findByUsername(username);
 
         if (userModel == null) {
+            usernameCache.putMissing(username);
             throw new UserException.UserNotFoundException(username);
         }
+        usernameCache.putUser(username, userModel.getId());
 
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-
-        if (passwordEncoder.matches(password, userModel.getPassword())) {
+        if (passwordHashingService.matches(password, userModel.getPassword())) {
+            this.upgradePasswordHash(userModel, password);
             return userModel;
         } else {
             throw new UserException.UserInvalidValueException("Invalid credentials");
         }
     }
 
+    /**
+     * Rehashes the password with the current algorithm and parameters after a successful login,
+     * the only moment the plain password is known. Only the password is written, and only while it
+     * still holds the hash that was checked, so a concurrent update of the user is never overwritten.
+     * The upgrade is best-effort: if hashing or the write fails the login still succeeds and the
+     * upgrade waits for the next one.
+     */
+    private void upgradePasswordHash(UserModel user, String password) {
+        String oldHash = user.getPassword();
+        if (!passwordHashingService.needsRehash(oldHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordHashingService.encode(password);
+            Query query = new Query(Criteria.where("_id").is(user.getId()).and("password").is(oldHash));
+            if (mongoTemplate.updateFirst(query, new Update().set("password", newHash), UserModel.class).getModifiedCount() > 0) {
+                user.setPassword(newHash);
+            }
+        } catch (UserException | RuntimeException e) {
+            logger.warn("Could not upgrade the password hash of user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     public void validateUser(UserModel user) throws UserException {
         if (user == null) {
             throw new UserException.UserInvalidValueException("User cannot be null");
@@ -100,13 +159,6 @@ public class UserService implements UsersService {
         if (user.getUsername() == null || user.getPassword() == null || user.getEmail() == null) {
             throw new UserException.UserInvalidValueException("Username or password or email cannot be null");
         }
-        if (userRepository.findByUsername(user.getUsername()) != null) {
-            throw new UserException.UserConflictException(user.getUsername());
-        }
-        if (userRepository.findByEmail(user.getEmail()) != null) {
-            throw new UserException.UserConflictException(user.getEmail());
-        }
-
         validateUsername(user.getUsername());
         validateEmail(user.getEmail());
         validatePassword(user.getPassword());
@@ -116,6 +168,38 @@ public class UserService implements UsersService {
         }
 
         this.validateRole(user.getRole());
+        // Last, so malformed users are rejected without a database round trip
+        this.validateAvailable(user);
+    }
+
+    /**
+     * Rejects a username known to be taken without a query, otherwise checks the username and
+     * the email with a single $or query. The unique indexes still catch concurrent registrations.
+     */
+    private void validateAvailable(UserModel user) throws UserException {
+        if (usernameCache.lookup(user.getUsername()) == UsernameCache.Status.EXISTS) {
+            throw new UserException.UserConflictException(user.getUsername());
+        }
+
+        UserModel existing = userRepository.findFirstByUsernameOrEmail(user.getUsername(), user.getEmail());
+        if (existing == null) {
+            return;
+        }
+        if (user.getUsername().equals(existing.getUsername())) {
+            usernameCache.putUser(existing.getUsername(), existing.getId());
+            throw new UserException.UserConflictException(user.getUsername());
+        }
+        throw new UserException.UserEmailConflictException(user.getEmail());
+    }
+
+    /**
+     * The duplicate key error names the unique index that rejected the write.
+     */
+    private UserException conflict(UserModel user, DuplicateKeyException e) {
+        if (e.getMessage() != null && e.getMessage().contains("email_unique")) {
+            return new UserException.UserEmailConflictException(user.getEmail());
+        }
+        return new UserException.UserConflictException(user.getUsername());
     }
 
     private void validateUsername(String username) throws UserException.UserInvalidValueException {
@@ -0,0 +1,102 @@
+package cvds.todo.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Remembers which usernames exist, with the id of their user, and which do not, so repeated
+ * logins with an unknown name and checks of a taken name do not each query the database.
+ * Names created on other instances are only seen once the negative entries expire, so they
+ * live much shorter than the positive ones.
+ */
+@Component
+public class UsernameCache {
+    private final Cache<String, Optional<String>> cache;
+
+    /**
+     * What the cache knows about a username.
+     */
+    public enum Status {
+        /**
+         * The name is not cached, only the database can tell.
+         */
+        UNKNOWN,
+        /**
+         * The name is known not to exist.
+         */
+        MISSING,
+        /**
+         * The name is known to belong to a user.
+         */
+        EXISTS
+    }
+
+    @Autowired
+    public UsernameCache(MeterRegistry meterRegistry,
+                         @Value("${todo.users.username-cache.enabled:true}") boolean enabled,
+                         @Value("${todo.users.username-cache.size:10000}") long size,
+                         @Value("${todo.users.username-cache.ttl-ms:600000}") long ttlMillis,
+                         @Value("${todo.users.username-cache.negative-ttl-ms:10000}") long negativeTtlMillis) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        long ttlNanos = ttlMillis * 1_000_000;
+        long negativeTtlNanos = negativeTtlMillis * 1_000_000;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfter(new Expiry<String, Optional<String>>() {
+                    @Override
+                    public long expireAfterCreate(String username, Optional<String> userId, long currentTime) {
+                        return userId.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Optional<String> userId, long currentTime, long currentDuration) {
+                        return this.expireAfterCreate(username, userId, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Optional<String> userId, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "usernames");
+    }
+
+    public Status lookup(String username) {
+        Optional<String> userId = cache == null || username == null ? null : cache.getIfPresent(username);
+        if (userId == null) {
+            return Status.UNKNOWN;
+        }
+        return userId.isPresent() ? Status.EXISTS : Status.MISSING;
+    }
+
+    public void putUser(String username, String userId) {
+        if (cache != null && username != null && userId != null) {
+            cache.put(username, Optional.of(userId));
+        }
+    }
+
+    public void putMissing(String username) {
+        if (cache != null && username != null) {
+            cache.put(username, Optional.empty());
+        }
+    }
+
+    public void invalidate(String username) {
+        if (cache != null && username != null) {
+            cache.invalidate(username);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cvds.todo.backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.security.user.name=actuator", "spring.security.user.password=secret"})
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void metrics_WithoutCredentials_ShouldBeUnauthorized() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics/sessions.active"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void metrics_WithCredentials_ShouldBeReadable() throws Exception {
+        String credentials = Base64.getEncoder().encodeToString("actuator:secret".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, "Basic " + credentials))
+                .andExpect(status().isOk());
+    }
+}
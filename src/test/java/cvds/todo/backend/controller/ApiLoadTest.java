@@ -0,0 +1,309 @@
+package cvds.todo.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the whole application over HTTP with many concurrent virtual users, against an
+ * in-memory MongoDB stand-in, and compares the latency and throughput of every endpoint with
+ * the baseline in src/test/resources/load-baseline.json. The report is written to
+ * target/load-report.json. Run it with: mvn test -Dtest=ApiLoadTest -Dload=true
+ * Options: -Dload.users -Dload.seconds (by default those of the baseline), -Dload.warmup-seconds=5,
+ * -Dload.throughput-tolerance=0.3 (fraction of the baseline rps that may be lost),
+ * -Dload.latency-tolerance=1.0 (fraction of the baseline p99 that may be added), and
+ * -Dload.update-baseline=true to store the results of this machine as the new baseline.
+ * Baselines only compare runs on the same kind of machine.
+ */
+@Tag("load")
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.ssl.enabled=false",
+        "todo.sessions.mode=server",
+        "todo.sessions.store=memory",
+        "todo.tasks.stream.source=local"
+})
+class ApiLoadTest {
+    private static final Path BASELINE = Path.of("src/test/resources/load-baseline.json");
+    private static final Path REPORT = Path.of("target/load-report.json");
+    private static final String PASSWORD = "password123";
+    private static final double MAX_ERROR_RATIO = 0.001;
+    private static final int MIN_COMPARED_REQUESTS = 50;
+    private static final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+
+    private final int users = setting("load.users", "users", 16);
+    private final int seconds = setting("load.seconds", "seconds", 20);
+    private final int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+    private final double throughputTolerance = Double.parseDouble(System.getProperty("load.throughput-tolerance", "0.3"));
+    private final double latencyTolerance = Double.parseDouble(System.getProperty("load.latency-tolerance", "1.0"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+    private volatile boolean measuring;
+
+    /**
+     * A system property, or else the value the baseline was measured with.
+     */
+    private static int setting(String property, String baselineField, int defaultValue) {
+        if (System.getProperty(property) != null) {
+            return Integer.getInteger(property);
+        }
+        try {
+            return new ObjectMapper().readTree(BASELINE.toFile()).path(baselineField).asInt(defaultValue);
+        } catch (IOException e) {
+            return defaultValue;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        InetSocketAddress address = mongoServer.bind();
+        registry.add("spring.data.mongodb.uri", () -> "mongodb://" + address.getHostString() + ":" + address.getPort() + "/tasks");
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongoServer.shutdownNow();
+    }
+
+    @Test
+    void endpointsShouldKeepTheirBaselineUnderLoad() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        CountDownLatch ready = new CountDownLatch(users);
+        long runId = System.currentTimeMillis() % 100_000;
+        long end = System.nanoTime() + Duration.ofSeconds(warmupSeconds + seconds).toNanos();
+
+        List<Future<?>> virtualUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            int user = i;
+            // Users arrive spread over the warmup instead of all logging in at once
+            long arrival = Duration.ofSeconds(warmupSeconds).toMillis() * user / users;
+            virtualUsers.add(executor.submit(() -> {
+                Thread.sleep(arrival);
+                this.runVirtualUser("load" + runId + "u" + user, ready, end);
+                return null;
+            }));
+        }
+        ready.await();
+        measuring = true;
+        long measureStart = System.nanoTime();
+        for (Future<?> virtualUser : virtualUsers) {
+            virtualUser.get();
+        }
+        double measuredSeconds = (System.nanoTime() - measureStart) / 1e9;
+        executor.shutdown();
+
+        ObjectNode report = this.report(measuredSeconds);
+        Files.createDirectories(REPORT.getParent());
+        objectMapper.writeValue(REPORT.toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+
+        if (Boolean.getBoolean("load.update-baseline")) {
+            Files.createDirectories(BASELINE.getParent());
+            objectMapper.writeValue(BASELINE.toFile(), report);
+            return;
+        }
+        List<String> regressions = this.compareWithBaseline(report);
+        assertTrue(regressions.isEmpty(), "Regressions against " + BASELINE + ": " + regressions);
+    }
+
+    /**
+     * Registers and logs in a user, then sends a mix of requests until the end of the run:
+     * mostly reads, some task creations and, rarely, logins, registrations and generations.
+     */
+    private void runVirtualUser(String username, CountDownLatch ready, long end) throws Exception {
+        SplittableRandom random = new SplittableRandom(username.hashCode());
+        String token;
+        List<String> taskIds = new ArrayList<>();
+        try {
+            this.register(username);
+            token = this.login(username);
+            if (token == null) {
+                throw new IllegalStateException("Virtual user " + username + " could not log in");
+            }
+            for (int i = 0; i < 5; i++) {
+                taskIds.add(this.createTask(token, i));
+            }
+        } finally {
+            ready.countDown();
+        }
+
+        int created = taskIds.size();
+        while (System.nanoTime() < end) {
+            int operation = random.nextInt(1000);
+            if (operation < 450) {
+                this.send("GET /tasks", this.request("/tasks", token).GET());
+            } else if (operation < 750) {
+                String id = taskIds.get(random.nextInt(taskIds.size()));
+                this.send("GET /tasks/{id}", this.request("/tasks/" + id, token).GET());
+            } else if (operation < 930) {
+                taskIds.add(this.createTask(token, created++));
+            } else if (operation < 990) {
+                this.login(username);
+            } else if (operation < 995) {
+                this.register(username + "r" + registrations.incrementAndGet());
+            } else {
+                this.send("POST /tasks/gen", this.request("/tasks/gen", token).POST(HttpRequest.BodyPublishers.noBody()));
+            }
+        }
+    }
+
+    private void register(String username) throws Exception {
+        Map<String, String> user = Map.of("username", username, "email", username + "@example.com", "password", PASSWORD);
+        this.send("POST /users", this.request("/users", null).POST(this.json(user)));
+    }
+
+    private String login(String username) throws Exception {
+        Map<String, String> login = Map.of("username", username, "password", PASSWORD);
+        HttpResponse<String> response = this.send("POST /auth", this.request("/auth", null).POST(this.json(login)));
+        return response.statusCode() == 200 ? objectMapper.readTree(response.body()).get("cookie").asText() : null;
+    }
+
+    private String createTask(String token, int number) throws Exception {
+        Map<String, Object> task = Map.of("name", "Task " + number, "description", "Load test task", "priority", 1 + number % 5,
+                "difficulty", "MEDIUM");
+        HttpResponse<String> response = this.send("POST /tasks", this.request("/tasks", token).POST(this.json(task)));
+        JsonNode id = response.statusCode() == 201 ? objectMapper.readTree(response.body()).get("id") : null;
+        return id == null ? "missing" : id.asText();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        return token == null ? builder : builder.header("Authorization", token);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest.Builder request) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (measuring) {
+            latencies.computeIfAbsent(endpoint, key -> new Latencies()).record(System.nanoTime() - start, response.statusCode() < 400);
+        }
+        return response;
+    }
+
+    private ObjectNode report(double measuredSeconds) {
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("users", users);
+        report.put("seconds", seconds);
+        ObjectNode endpoints = report.putObject("endpoints");
+        new TreeMap<>(latencies).forEach((endpoint, samples) -> {
+            long[] sorted = samples.sorted();
+            ObjectNode result = endpoints.putObject(endpoint);
+            result.put("requests", sorted.length);
+            result.put("errors", samples.errors());
+            result.put("rps", Math.round(sorted.length / measuredSeconds * 10) / 10.0);
+            result.put("p50Ms", percentileMillis(sorted, 0.50));
+            result.put("p99Ms", percentileMillis(sorted, 0.99));
+            result.put("p999Ms", percentileMillis(sorted, 0.999));
+        });
+        return report;
+    }
+
+    /**
+     * An endpoint regresses when its throughput drops or its p99 latency grows more than their
+     * tolerances, or when it fails requests. Rare endpoints have too few samples for stable
+     * percentiles, so only their errors are checked.
+     */
+    private List<String> compareWithBaseline(ObjectNode report) throws IOException {
+        List<String> regressions = new ArrayList<>();
+        JsonNode baseline = objectMapper.readTree(BASELINE.toFile()).get("endpoints");
+        for (Map.Entry<String, JsonNode> expected : (Iterable<Map.Entry<String, JsonNode>>) baseline::fields) {
+            JsonNode actual = report.get("endpoints").get(expected.getKey());
+            if (actual == null) {
+                regressions.add(expected.getKey() + " was not measured");
+                continue;
+            }
+            if (actual.get("errors").asLong() > actual.get("requests").asLong() * MAX_ERROR_RATIO) {
+                regressions.add(expected.getKey() + " failed " + actual.get("errors") + " requests");
+            }
+            if (expected.getValue().get("requests").asLong() < MIN_COMPARED_REQUESTS) {
+                continue;
+            }
+            if (actual.get("rps").asDouble() < expected.getValue().get("rps").asDouble() * (1 - throughputTolerance)) {
+                regressions.add(expected.getKey() + " rps " + actual.get("rps") + " < baseline " + expected.getValue().get("rps"));
+            }
+            if (actual.get("p99Ms").asDouble() > expected.getValue().get("p99Ms").asDouble() * (1 + latencyTolerance)) {
+                regressions.add(expected.getKey() + " p99 " + actual.get("p99Ms") + " ms > baseline " + expected.getValue().get("p99Ms") + " ms");
+            }
+        }
+        return regressions;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return Math.round(sorted[Math.max(0, index)] / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Latencies in nanoseconds of one endpoint, recorded from every virtual user.
+     */
+    private static class Latencies {
+        private long[] samples = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void record(long nanos, boolean success) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+}
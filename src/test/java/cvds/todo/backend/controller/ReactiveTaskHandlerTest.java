@@ -0,0 +1,166 @@
+package cvds.todo.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cvds.todo.backend.ReactiveConfig;
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.interfeces.ReactiveTasksService;
+import cvds.todo.backend.interfeces.SessionsService;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.UserModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveTaskHandlerTest {
+    private ReactiveTasksService taskService;
+    private SessionsService sessionService;
+    private WebTestClient client;
+    private UserModel user;
+    private TaskModel task;
+
+    @BeforeEach
+    void setUp() throws AppException {
+        taskService = mock(ReactiveTasksService.class);
+        sessionService = mock(SessionsService.class);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ReactiveTaskHandler handler = new ReactiveTaskHandler(taskService, sessionService, objectMapper, "server", "memory");
+        client = WebTestClient.bindToRouterFunction(new ReactiveConfig().reactiveTaskRoutes(handler)).build();
+
+        user = new UserModel();
+        user.setId("user");
+        task = new TaskModel("task");
+        task.setName("Task");
+        task.setPriority(3);
+        task.setVersion(2L);
+        when(sessionService.getUserFromSession("token")).thenReturn(user);
+    }
+
+    @Test
+    void getTasks_ShouldStreamTasksAsNdjson() {
+        TaskModel other = new TaskModel("other");
+        other.setName("Other");
+        when(taskService.getAllTasks(user)).thenReturn(Flux.just(task, other));
+
+        List<TaskModel> tasks = client.get().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "token")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(TaskModel.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of("task", "other"), tasks.stream().map(TaskModel::getId).toList());
+    }
+
+    @Test
+    void getTasks_ShouldFilterAndOnlyWriteTheRequestedFields() throws AppException {
+        when(taskService.findTasks(eq(user), any(TaskQueryModel.class))).thenReturn(Flux.just(task));
+
+        String body = client.get().uri("/tasks?done=false&priorityMin=2&fields=id,name").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals("{\"id\":\"task\",\"name\":\"Task\"}", body.trim());
+        verify(taskService).findTasks(eq(user), argThat(query -> Boolean.FALSE.equals(query.getDone()) && query.getPriorityMin() == 2));
+    }
+
+    @Test
+    void getTasks_ShouldAnswerBadRequestBeforeStreamingAnInvalidQuery() throws AppException {
+        when(taskService.findTasks(eq(user), any(TaskQueryModel.class)))
+                .thenThrow(new TaskException.TaskInvalidValueException("Sort must be one of the sortable fields"));
+
+        client.get().uri("/tasks?sort=name").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid value for: Sort must be one of the sortable fields");
+        client.get().uri("/tasks?priorityMin=high").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void requests_ShouldNeedAValidSession() throws AppException {
+        when(sessionService.getUserFromSession("invalid")).thenThrow(new SessionException.InvalidSessionException("invalid"));
+
+        client.get().uri("/tasks").exchange().expectStatus().isBadRequest();
+        client.get().uri("/tasks/task").header(HttpHeaders.AUTHORIZATION, "invalid")
+                .exchange()
+                .expectStatus().isUnauthorized();
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void getTaskById_ShouldAnswerTheTaskWithItsVersionOrNotFound() {
+        when(taskService.getTaskById("task", user)).thenReturn(Mono.just(task));
+        when(taskService.getTaskById("missing", user)).thenReturn(Mono.error(new TaskException.TaskNotFoundException("missing")));
+
+        client.get().uri("/tasks/task").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody().jsonPath("$.name").isEqualTo("Task");
+        client.get().uri("/tasks/missing").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void createTask_ShouldAnswerCreated() {
+        when(taskService.createTask(any(TaskModel.class), eq(user))).thenReturn(Mono.just(task));
+
+        client.post().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Task\",\"priority\":3}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.id").isEqualTo("task");
+    }
+
+    @Test
+    void updateTask_ShouldSendTheVersionOfIfMatch() {
+        when(taskService.updateTask(eq("task"), any(TaskModel.class), eq(user), eq(2L)))
+                .thenReturn(Mono.error(new TaskException.TaskVersionMismatchException("task")));
+
+        client.patch().uri("/tasks/task").header(HttpHeaders.AUTHORIZATION, "token").header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"done\":true}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        client.patch().uri("/tasks/task").header(HttpHeaders.AUTHORIZATION, "token").header(HttpHeaders.IF_MATCH, "abc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"done\":true}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void deleteTask_ShouldAnswerTheDeletedTask() {
+        when(taskService.deleteTask("task", user)).thenReturn(Mono.just(task));
+
+        client.delete().uri("/tasks/task").header(HttpHeaders.AUTHORIZATION, "token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo("task");
+    }
+}
@@ -1,10 +1,21 @@
 package cvds.todo.backend.controller;
 
 import cvds.todo.backend.TodoBackendApplication;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.exceptions.SessionException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskBatchResultModel;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskJobModel;
 import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskPageModel;
+import cvds.todo.backend.model.TaskQueryModel;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.services.AuthorizationService;
-import cvds.todo.backend.services.SessionService;
+import cvds.todo.backend.interfeces.SessionsService;
+import cvds.todo.backend.services.TaskEventService;
+import cvds.todo.backend.services.TaskJobService;
 import cvds.todo.backend.services.TaskService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,15 +24,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,7 +62,13 @@ class TaskControllerTest {
     private TaskService taskService;
 
     @MockBean
-    private SessionService sessionService;
+    private TaskJobService taskJobService;
+
+    @Autowired
+    private TaskEventService taskEventService;
+
+    @MockBean
+    private SessionsService sessionService;
 
     @MockBean
     private AuthorizationService authorizationService;
@@ -51,13 +78,14 @@ class TaskControllerTest {
     private String sessionToken;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws AppException {
         // Initialize test data
         sessionToken = "valid-session-token";
 
         user = new UserModel();
         user.setId(UUID.randomUUID().toString());
         user.setUsername("testUser");
+        when(taskService.getTasksVersion(any())).thenReturn("1-0-0");
 
         task = new TaskModel();
         task.setId(UUID.randomUUID().toString());
@@ -68,7 +96,6 @@ class TaskControllerTest {
     @Test
     void getAllTasks_WithValidSession_ShouldReturnListOfTasks() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
         when(taskService.getAllTasks(user)).thenReturn(Collections.singletonList(task));
 
@@ -78,13 +105,145 @@ class TaskControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].id").value(task.getId()))
-                .andExpect(jsonPath("$[0].name").value(task.getName()));
+                .andExpect(jsonPath("$[0].name").value(task.getName()))
+                .andExpect(header().string("ETag", "\"1-0-0\""));
+    }
+
+    @Test
+    void getAllTasks_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingTasks() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.getTasksVersion(user)).thenReturn("3-7-1700000000000");
+
+        mockMvc.perform(get("/tasks")
+                        .header("Authorization", sessionToken)
+                        .header("If-None-Match", "\"3-7-1700000000000\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(taskService, never()).getAllTasks(any());
+    }
+
+    @Test
+    void getChanges_WithWatermark_ShouldReturnChanges() throws Exception {
+        LocalDateTime since = LocalDateTime.of(2024, 10, 1, 12, 0);
+        TaskChangesModel changes = new TaskChangesModel(List.of(task), List.of("deleted"), since.plusHours(1), false);
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.getChanges(user, since)).thenReturn(changes);
+
+        mockMvc.perform(get("/tasks/changes")
+                        .param("since", "2024-10-01T12:00:00")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].id").value(task.getId()))
+                .andExpect(jsonPath("$.deletedIds[0]").value("deleted"))
+                .andExpect(jsonPath("$.fullResync").value(false))
+                .andExpect(jsonPath("$.watermark").exists());
+    }
+
+    @Test
+    void streamTasks_ShouldPushChangesOfTheUser() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+
+        MvcResult result = mockMvc.perform(get("/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Authorization", sessionToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        taskEventService.publish(user.getId(), TaskEventType.UPDATED, task.getId(), task);
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!result.getResponse().getContentAsString().contains("event:updated") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(result.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        assertTrue(result.getResponse().getContentAsString().contains("\"taskId\":\"" + task.getId() + "\""));
+    }
+
+    @Test
+    void streamTasks_WithInvalidOrMissingSession_ShouldReturnJsonError() throws Exception {
+        when(sessionService.getUserFromSession("invalid")).thenThrow(new SessionException.InvalidSessionException("invalid"));
+        when(sessionService.getUserFromSession("missing")).thenThrow(new SessionException.SessionNotFoundException("missing"));
+
+        mockMvc.perform(get("/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Authorization", "invalid"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").exists());
+        mockMvc.perform(get("/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Authorization", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void streamTasks_WithTooManyStreams_ShouldReturnTooManyRequests() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM)
+                            .header("Authorization", sessionToken))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(get("/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("Too many task streams open, close one and try again"));
+    }
+
+    @Test
+    void exportTasks_ShouldWriteEveryTaskAndCloseTheCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.streamAllTasks(user)).thenReturn(Stream.of(task).onClose(() -> closed.set(true)));
+
+        MvcResult result = mockMvc.perform(get("/tasks/export").header("Authorization", sessionToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(task.getId()));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportTasks_WhenReadingFails_ShouldNotCloseTheArray() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Supplier<TaskModel>> reads = Stream.of(() -> task, () -> {
+            throw new DataAccessResourceFailureException("Cursor lost");
+        });
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.streamAllTasks(user)).thenReturn(reads.map(Supplier::get).onClose(() -> closed.set(true)));
+
+        MvcResult result = mockMvc.perform(get("/tasks/export").header("Authorization", sessionToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("[") && !body.endsWith("]"), body);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void getTasksPage_WithValidSession_ShouldReturnPageAndCursor() throws Exception {
+        // Arrange
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.getTasksPage(user, null, 10)).thenReturn(new TaskPageModel(Collections.singletonList(task), "next"));
+
+        // Act & Assert
+        mockMvc.perform(get("/tasks/page")
+                        .param("size", "10")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].id").value(task.getId()))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
     }
 
     @Test
     void createTask_WithValidSession_ShouldCreateAndReturnTask() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
         when(taskService.createTask(any(TaskModel.class), eq(user))).thenReturn(task);
 
@@ -101,7 +260,6 @@ class TaskControllerTest {
     @Test
     void getTaskById_WithValidSession_ShouldReturnTask() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
         when(taskService.getTaskById(task.getId(), user)).thenReturn(task);
 
@@ -113,10 +271,29 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.id").value(task.getId()));
     }
 
+    @Test
+    void getTaskById_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+        task.setVersion(2L);
+        task.setUpdatedAt(LocalDateTime.of(2024, 10, 1, 12, 0));
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.getTaskById(task.getId(), user)).thenReturn(task);
+
+        mockMvc.perform(get("/tasks/{id}", task.getId())
+                        .header("Authorization", sessionToken)
+                        .header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/tasks/{id}", task.getId())
+                        .header("Authorization", sessionToken)
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(header().exists("Last-Modified"));
+    }
+
     @Test
     void deleteTask_WithValidSession_ShouldDeleteAndReturnTask() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
         when(taskService.deleteTask(task.getId(), user)).thenReturn(task);
 
@@ -134,9 +311,8 @@ class TaskControllerTest {
         updatedTask.setId(task.getId());
         updatedTask.setName("Updated Task");
 
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
-        when(taskService.updateTask(eq(task.getId()), any(TaskModel.class), eq(user)))
+        when(taskService.updateTask(eq(task.getId()), any(TaskModel.class), eq(user), isNull()))
                 .thenReturn(updatedTask);
 
         // Act & Assert
@@ -149,12 +325,42 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.name").value(updatedTask.getName()));
     }
 
+    @Test
+    void updateTask_WithIfMatch_ShouldSendExpectedVersionAndReturnETag() throws Exception {
+        TaskModel updatedTask = new TaskModel(task.getId());
+        updatedTask.setName("Updated Task");
+        updatedTask.setVersion(4L);
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.updateTask(eq(task.getId()), any(TaskModel.class), eq(user), eq(3L))).thenReturn(updatedTask);
+
+        mockMvc.perform(patch("/tasks/{id}", task.getId())
+                        .header("Authorization", sessionToken)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Updated Task\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateTask_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.updateTask(eq(task.getId()), any(TaskModel.class), eq(user), eq(3L)))
+                .thenThrow(new TaskException.TaskVersionMismatchException(task.getId()));
+
+        mockMvc.perform(patch("/tasks/{id}", task.getId())
+                        .header("Authorization", sessionToken)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Updated Task\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void deleteAllTasks_WithValidSession_ShouldDeleteAllAndReturnCount() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
-        when(taskService.deleteAllTasks(user)).thenReturn(Collections.singletonList(task));
+        when(taskService.deleteAllTasks(user)).thenReturn(1L);
 
         // Act & Assert
         mockMvc.perform(delete("/tasks/all")
@@ -163,12 +369,36 @@ class TaskControllerTest {
                 .andExpect(content().string("1 Tasks were deleted successfully"));
     }
 
+    @Test
+    void deleteAllTasks_Async_ShouldReturnAcceptedJob() throws Exception {
+        TaskJobModel job = new TaskJobModel("job-1", "delete-all", user.getId());
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.deleteAllTasksAsync(user)).thenReturn(job);
+
+        mockMvc.perform(delete("/tasks/all?async=true")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.ownerId").doesNotExist());
+        verify(taskService, never()).deleteAllTasks(any());
+    }
+
+    @Test
+    void getJob_OfAnotherUser_ShouldReturnNotFound() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskJobService.getJob("job-1", user)).thenThrow(new TaskException.TaskJobNotFoundException("job-1"));
+
+        mockMvc.perform(get("/tasks/jobs/job-1")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void generateTasks_WithValidAdminSession_ShouldGenerateTasks() throws Exception {
         // Arrange
-        when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
         when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
-        doNothing().when(authorizationService).adminResource(sessionToken);
+        doNothing().when(authorizationService).adminResource(user);
         when(taskService.generateExamples(user)).thenReturn(Collections.singletonList(task));
 
         // Act & Assert
@@ -178,6 +408,84 @@ class TaskControllerTest {
                 .andExpect(content().string("1 Tasks were generated"));
     }
 
+    @Test
+    void generateBulkTasks_WithValidAdminSession_ShouldReturnAcceptedJob() throws Exception {
+        TaskJobModel job = new TaskJobModel("job-1", "generate", user.getId());
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        doNothing().when(authorizationService).adminResource(user);
+        when(taskService.generateTasksAsync(user, 1000000, 42)).thenReturn(job);
+
+        mockMvc.perform(post("/tasks/gen/bulk?count=1000000")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.type").value("generate"));
+    }
+
+    @Test
+    void getAllTasks_WithFilters_ShouldQueryTheDatabase() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.findTasks(eq(user), any(TaskQueryModel.class))).thenReturn(Collections.singletonList(task));
+
+        mockMvc.perform(get("/tasks")
+                        .param("done", "false")
+                        .param("priorityMin", "3")
+                        .param("deadlineBefore", "2024-12-31T00:00:00")
+                        .param("sort", "-deadline")
+                        .param("limit", "10")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value(task.getName()));
+
+        verify(taskService).findTasks(eq(user), argThat(query -> Boolean.FALSE.equals(query.getDone())
+                && query.getPriorityMin() == 3
+                && query.getDeadlineBefore().equals(LocalDateTime.of(2024, 12, 31, 0, 0))
+                && query.getSort().equals("-deadline")
+                && query.getLimit() == 10));
+        verify(taskService, never()).getAllTasks(any());
+    }
+
+    @Test
+    void getAllTasks_WithFields_ShouldOnlySerializeRequestedFields() throws Exception {
+        TaskModel projected = new TaskModel();
+        projected.setName(task.getName());
+        projected.setDone(true);
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.findTasks(eq(user), any(TaskQueryModel.class))).thenReturn(Collections.singletonList(projected));
+
+        mockMvc.perform(get("/tasks")
+                        .param("fields", "name,done")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value(task.getName()))
+                .andExpect(jsonPath("$[0].done").value(true))
+                .andExpect(jsonPath("$[0].priority").doesNotExist())
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].ownerIds").doesNotExist());
+    }
+
+    @Test
+    void runBatch_WithValidSession_ShouldReturnResultPerOperation() throws Exception {
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.runBatch(eq(user), anyList())).thenReturn(List.of(
+                new TaskBatchResultModel(0, "create", "new-id", 201, null),
+                new TaskBatchResultModel(1, "delete", "missing", 404, "Task: missing, not found in the database.")
+        ));
+
+        mockMvc.perform(post("/tasks/batch")
+                        .header("Authorization", sessionToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\": \"create\", \"task\": {\"name\": \"Task\"}}, {\"op\": \"delete\", \"id\": \"missing\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").value("new-id"))
+                .andExpect(jsonPath("$[1].status").value(404));
+
+        verify(taskService).runBatch(eq(user), argThat(operations -> operations.size() == 2
+                && operations.get(0).getTask().getName().equals("Task")
+                && operations.get(1).getId().equals("missing")));
+    }
+
     @Test
     void getAllTasks_WithInvalidSession_ShouldReturnUnauthorized() throws Exception {
         // Arrange
@@ -185,6 +493,42 @@ class TaskControllerTest {
         when(sessionService.isSessionActive(sessionToken)).thenReturn(true);
     }
 
+    @Test
+    void getAllTasks_WithUnknownSession_ShouldReturnNotFound() throws Exception {
+        // Arrange
+        when(sessionService.getUserFromSession(sessionToken)).thenThrow(new SessionException.SessionNotFoundException(sessionToken));
+
+        // Act & Assert
+        mockMvc.perform(get("/tasks")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Session with ID: " + sessionToken + " not found."));
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void getAllTasks_WithoutSessionHeader_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/tasks"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(sessionService, taskService);
+    }
+
+    @Test
+    void generateTasks_ShouldResolveSessionOnlyOnce() throws Exception {
+        // Arrange
+        when(sessionService.getUserFromSession(sessionToken)).thenReturn(user);
+        when(taskService.generateExamples(user)).thenReturn(Collections.singletonList(task));
+
+        // Act
+        mockMvc.perform(post("/tasks/gen")
+                        .header("Authorization", sessionToken))
+                .andExpect(status().isCreated());
+
+        // Assert
+        verify(sessionService, times(1)).getUserFromSession(sessionToken);
+        verify(authorizationService).adminResource(user);
+    }
+
     @Test
     void checkHealth_ShouldReturnServiceUp() throws Exception {
         mockMvc.perform(get("/tasks/health"))
@@ -0,0 +1,360 @@
+package cvds.todo.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cvds.todo.backend.ReactiveTaskServer;
+import cvds.todo.backend.TodoBackendApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the platform thread and the virtual thread request modes (spring.threads.virtual.enabled)
+ * of the MVC API with the WebFlux API of the reactive profile. For each mode the application is
+ * started against an in-memory MongoDB stand-in behind a proxy that delays every command, so requests
+ * spend their time waiting on the database like in production, and many clients call GET /tasks back
+ * to back. It reports the most requests in flight at once, the throughput, the p50, p99 and p999
+ * latencies, and the threads and memory (resident set and heap) added per request in flight, also as
+ * connections per GiB of resident memory; in the virtual mode it also records, with JFR, every time a
+ * virtual thread pinned its carrier thread.
+ * The client runs in the same JVM and costs the same in both modes. The report is written to
+ * target/thread-mode-report.json. Run it with: mvn test -Dtest=ThreadModeBenchmarkTest -Dbenchmark=true
+ * Options: -Dbenchmark.connections=1000, -Dbenchmark.seconds=10, -Dbenchmark.mongo-delay-ms=100
+ */
+@Tag("load")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadModeBenchmarkTest {
+    private static final Path REPORT = Path.of("target/thread-mode-report.json");
+    private static final String PASSWORD = "password123";
+    private static final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+
+    private final int connections = Integer.getInteger("benchmark.connections", 1000);
+    private final int seconds = Integer.getInteger("benchmark.seconds", 10);
+    private final long mongoDelayMillis = Long.getLong("benchmark.mongo-delay-ms", 100);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @AfterAll
+    static void stopMongo() {
+        mongoServer.shutdownNow();
+    }
+
+    @Test
+    void virtualThreadsShouldServeMoreRequestsInFlightWithoutPinning() throws Exception {
+        InetSocketAddress mongoAddress = mongoServer.bind();
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("connections", connections);
+        report.put("seconds", seconds);
+        report.put("mongoDelayMs", mongoDelayMillis);
+
+        try (LatencyProxy proxy = new LatencyProxy(mongoAddress, mongoDelayMillis)) {
+            ObjectNode platform = this.measure("platform", false, false, proxy.port());
+            ObjectNode virtual = this.measure("virtual", true, false, proxy.port());
+            ObjectNode reactive = this.measure("reactive", false, true, proxy.port());
+            report.set("platform", platform);
+            report.set("virtual", virtual);
+            report.set("reactive", reactive);
+
+            Files.createDirectories(REPORT.getParent());
+            objectMapper.writeValue(REPORT.toFile(), report);
+            System.out.println(objectMapper.writeValueAsString(report));
+
+            assertTrue(virtual.get("maxInFlight").asLong() > platform.get("maxInFlight").asLong(),
+                    "Virtual threads should keep more requests in flight than the platform thread pool");
+            assertTrue(reactive.get("maxInFlight").asLong() > platform.get("maxInFlight").asLong(),
+                    "The reactive API should keep more requests in flight than the platform thread pool");
+            assertEquals(0, virtual.get("pinnedEvents").asLong(), "Virtual threads pinned their carrier: " + virtual.get("pinnedAt"));
+        }
+    }
+
+    /**
+     * Starts the application in one mode, loads it and stops it. In the reactive mode users log in
+     * through the MVC API and GET /tasks goes to the reactive one.
+     */
+    private ObjectNode measure(String mode, boolean virtualThreads, boolean reactive, int mongoPort) throws Exception {
+        // Given as arguments, default properties would lose against application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--server.ssl.enabled=false",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                // Every request in flight may hold a connection, and they are opened together, so the pool is not
+                // what limits them
+                "--spring.data.mongodb.uri=mongodb://localhost:" + mongoPort + "/threads-" + mode
+                        + "?maxPoolSize=" + connections + "&maxConnecting=" + connections,
+                "--todo.tasks.cache.enabled=false",
+                "--todo.sessions.store=memory",
+                "--todo.tasks.stream.source=local"));
+        if (reactive) {
+            arguments.add("--spring.profiles.active=reactive");
+            arguments.add("--todo.reactive.port=0");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TodoBackendApplication.class)
+                .run(arguments.toArray(String[]::new));
+        PinnedThreads pinnedThreads = virtualThreads ? new PinnedThreads() : null;
+        try {
+            String mvcUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String baseUrl = reactive ? "http://localhost:" + context.getBean(ReactiveTaskServer.class).getPort() : mvcUrl;
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            String token = this.prepareUser(mvcUrl, mode);
+
+            Resources idle = Resources.sample();
+            Resources peak = idle;
+            long maxInFlight = 0;
+            AtomicLong requests = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+            long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < connections; i++) {
+                    clients.submit(() -> {
+                        while (System.nanoTime() < end) {
+                            long start = System.nanoTime();
+                            HttpResponse<Void> response = this.getTasks(baseUrl, token);
+                            latencies.add(System.nanoTime() - start);
+                            requests.incrementAndGet();
+                            if (response == null || response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    });
+                }
+                while (System.nanoTime() < end) {
+                    Thread.sleep(100);
+                    long inFlight = inFlightRequests(meterRegistry, reactive);
+                    if (inFlight > maxInFlight) {
+                        maxInFlight = inFlight;
+                        peak = Resources.sample();
+                    }
+                }
+            }
+
+            ObjectNode result = objectMapper.createObjectNode();
+            result.put("maxInFlight", maxInFlight);
+            result.put("requests", requests.get());
+            result.put("errors", errors.get());
+            result.put("rps", Math.round(requests.get() * 10.0 / seconds) / 10.0);
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            result.put("p50Ms", percentileMillis(sorted, 0.50));
+            result.put("p99Ms", percentileMillis(sorted, 0.99));
+            result.put("p999Ms", percentileMillis(sorted, 0.999));
+            result.put("threads", peak.threads - idle.threads);
+            long perRequest = Math.max(1, maxInFlight);
+            long rssKib = Math.max(1, peak.rssKib - idle.rssKib);
+            result.put("rssKibPerInFlight", Math.round((peak.rssKib - idle.rssKib) * 10.0 / perRequest) / 10.0);
+            result.put("connectionsPerGiB", Math.round(maxInFlight * 1024.0 * 1024.0 / rssKib));
+            result.put("heapKibPerInFlight", Math.round((peak.heapBytes - idle.heapBytes) / 102.4 / perRequest) / 10.0);
+            if (pinnedThreads != null) {
+                result.put("pinnedEvents", pinnedThreads.events.values().stream().mapToLong(AtomicLong::get).sum());
+                ArrayNode pinnedAt = result.putArray("pinnedAt");
+                pinnedThreads.events.forEach((frame, count) -> pinnedAt.add(frame + " x" + count));
+            }
+            return result;
+        } finally {
+            if (pinnedThreads != null) {
+                pinnedThreads.close();
+            }
+            context.close();
+        }
+    }
+
+    private String prepareUser(String baseUrl, String mode) throws Exception {
+        String username = "threads" + mode;
+        Map<String, String> user = Map.of("username", username, "email", username + "@example.com", "password", PASSWORD);
+        httpClient.send(this.post(baseUrl + "/users", user, null), HttpResponse.BodyHandlers.discarding());
+
+        Map<String, String> login = Map.of("username", username, "password", PASSWORD);
+        HttpResponse<String> response = httpClient.send(this.post(baseUrl + "/auth", login, null), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Could not log in: " + response.body());
+        String token = objectMapper.readTree(response.body()).get("cookie").asText();
+
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> task = Map.of("name", "Task " + i, "description", "Thread mode benchmark task",
+                    "priority", 1 + i % 5, "difficulty", "MEDIUM");
+            httpClient.send(this.post(baseUrl + "/tasks", task, token), HttpResponse.BodyHandlers.discarding());
+        }
+        return token;
+    }
+
+    private HttpRequest post(String url, Object body, String token) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        return token == null ? builder.build() : builder.header("Authorization", token).build();
+    }
+
+    private HttpResponse<Void> getTasks(String baseUrl, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/tasks"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", token)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Requests being handled by the server, from the active request timer of the MVC observations
+     * or the active request gauge of the reactive server.
+     */
+    private static long inFlightRequests(MeterRegistry meterRegistry, boolean reactive) {
+        if (reactive) {
+            return (long) meterRegistry.get("reactive.requests.active").gauge().value();
+        }
+        return meterRegistry.find("http.server.requests.active").longTaskTimers().stream()
+                .mapToLong(LongTaskTimer::activeTasks)
+                .sum();
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return Math.round(sorted[Math.max(0, index)] / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Live threads, resident memory of the process and used heap at one moment.
+     */
+    private record Resources(int threads, long rssKib, long heapBytes) {
+        static Resources sample() throws IOException {
+            long rssKib = 0;
+            Path status = Path.of("/proc/self/status");
+            if (Files.exists(status)) {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("VmRSS:")) {
+                        rssKib = Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            }
+            return new Resources(ManagementFactory.getThreadMXBean().getThreadCount(), rssKib,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+    }
+
+    /**
+     * Counts the jdk.VirtualThreadPinned events, a virtual thread that blocked for more than 20 ms
+     * without releasing its carrier, by the first frame of this application or else the top frame.
+     */
+    private static class PinnedThreads implements AutoCloseable {
+        private final Map<String, AtomicLong> events = new ConcurrentHashMap<>();
+        private final RecordingStream recording = new RecordingStream();
+
+        PinnedThreads() {
+            recording.enable("jdk.VirtualThreadPinned").withStackTrace().withThreshold(Duration.ofMillis(20));
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+                String frame = frames.stream()
+                        .filter(candidate -> candidate.getMethod().getType().getName().startsWith("cvds.todo"))
+                        .findFirst()
+                        .or(() -> frames.stream().findFirst())
+                        .map(candidate -> candidate.getMethod().getType().getName() + "." + candidate.getMethod().getName())
+                        .orElse("unknown");
+                events.computeIfAbsent(frame, key -> new AtomicLong()).incrementAndGet();
+            });
+            recording.startAsync();
+        }
+
+        @Override
+        public void close() {
+            recording.close();
+        }
+    }
+
+    /**
+     * Forwards TCP connections to MongoDB, holding every chunk sent to it for a fixed delay.
+     */
+    private static class LatencyProxy implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final ExecutorService pumps = Executors.newVirtualThreadPerTaskExecutor();
+
+        LatencyProxy(InetSocketAddress target, long delayMillis) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            pumps.submit(() -> {
+                while (!serverSocket.isClosed()) {
+                    Socket client = serverSocket.accept();
+                    Socket server = new Socket(target.getHostString(), target.getPort());
+                    client.setTcpNoDelay(true);
+                    server.setTcpNoDelay(true);
+                    pumps.submit(() -> pump(client, server, delayMillis));
+                    pumps.submit(() -> pump(server, client, 0));
+                }
+                return null;
+            });
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private static Void pump(Socket from, Socket to, long delayMillis) throws Exception {
+            byte[] buffer = new byte[64 * 1024];
+            try (from; to; InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    if (delayMillis > 0) {
+                        Thread.sleep(delayMillis);
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // One side closed the connection
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            pumps.shutdownNow();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package cvds.todo.backend.controller;
 
+import cvds.todo.backend.exceptions.SessionException;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.services.AuthorizationService;
+import cvds.todo.backend.interfeces.SessionsService;
 import cvds.todo.backend.services.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,15 +39,20 @@ class UserControllerTest {
     @MockBean
     private AuthorizationService authorizationService;
 
+    @MockBean
+    private SessionsService sessionService;
+
     private UserModel user;
     private String token;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         token = "valid-session-token";
         user = new UserModel();
         user.setId(UUID.randomUUID().toString());
         user.setUsername("testUser");
+
+        when(sessionService.getUserFromSession(token)).thenReturn(user);
     }
 
     @Test
@@ -62,7 +69,7 @@ class UserControllerTest {
     @Test
     void getUserById_WithValidAdminToken_ShouldReturnUser() throws Exception {
         when(userService.getUserById(user.getId())).thenReturn(user);
-        doNothing().when(authorizationService).adminResource(token);
+        doNothing().when(authorizationService).adminResource(user);
 
         mockMvc.perform(get("/users/{id}", user.getId())
                         .header("authorization", token))
@@ -75,7 +82,7 @@ class UserControllerTest {
     @Test
     void getAllUsers_WithValidAdminToken_ShouldReturnUsersList() throws Exception {
         when(userService.getAllUsers()).thenReturn(Collections.singletonList(user));
-        doNothing().when(authorizationService).adminResource(token);
+        doNothing().when(authorizationService).adminResource(user);
 
         mockMvc.perform(get("/users")
                         .header("authorization", token))
@@ -88,7 +95,7 @@ class UserControllerTest {
     @Test
     void updateUser_WithValidAdminToken_ShouldUpdateUser() throws Exception {
         when(userService.updateUser(eq(user.getId()), Mockito.any(UserModel.class))).thenReturn(user);
-        doNothing().when(authorizationService).adminResource(token);
+        doNothing().when(authorizationService).adminResource(user);
 
         mockMvc.perform(put("/users/{id}", user.getId())
                         .header("authorization", token)
@@ -99,6 +106,16 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.username").value(user.getUsername()));
     }
 
+    @Test
+    void getAllUsers_WithNonAdminUser_ShouldReturnUnauthorized() throws Exception {
+        doThrow(new SessionException.InvalidSessionException("No access")).when(authorizationService).adminResource(user);
+
+        mockMvc.perform(get("/users")
+                        .header("authorization", token))
+                .andExpect(status().isUnauthorized());
+        verify(userService, never()).getAllUsers();
+    }
+
 
     private static class UserWithRoles {
         private UserModel user;
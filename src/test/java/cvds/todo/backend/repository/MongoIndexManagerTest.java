@@ -0,0 +1,101 @@
+package cvds.todo.backend.repository;
+
+import com.mongodb.client.MongoClients;
+import cvds.todo.backend.model.TaskModel;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoIndexManagerTest {
+
+    /**
+     * Every derived query of the managed repositories must be served by one of the indexes
+     * declared on their document, otherwise MongoDB falls back to a collection scan.
+     */
+    @Test
+    void repositoryQueries_ShouldBeCoveredByDeclaredIndexes() {
+        MongoMappingContext mappingContext = this.mappingContext();
+        for (var managed : MongoIndexManager.MANAGED_REPOSITORIES.entrySet()) {
+            List<List<String>> indexes = new ArrayList<>();
+            for (IndexDefinition definition : IndexResolver.create(mappingContext).resolveIndexFor(managed.getKey())) {
+                indexes.add(new ArrayList<>(definition.getIndexKeys().keySet()));
+            }
+
+            List<MongoIndexManager.QueryShape> shapes = MongoIndexManager.queryShapes(managed.getValue(), managed.getKey(), mappingContext);
+
+            assertFalse(shapes.isEmpty(), managed.getValue().getSimpleName() + " should declare query methods.");
+            for (MongoIndexManager.QueryShape shape : shapes) {
+                assertTrue(MongoIndexManager.isCovered(shape.getFields(), indexes), "No index covers " + shape);
+            }
+        }
+    }
+
+    @Test
+    void queryShapes_ShouldUseStoredFieldNames() {
+        List<MongoIndexManager.QueryShape> shapes = MongoIndexManager.queryShapes(TaskRepository.class, TaskModel.class, this.mappingContext());
+
+        MongoIndexManager.QueryShape byId = shapes.stream()
+                .filter(shape -> shape.getMethod().equals("findFirstByOwnerIdsContainingAndId"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(List.of("ownerIds", "_id"), byId.getFields());
+    }
+
+    @Test
+    void isCovered_ShouldOnlyAcceptIndexPrefixes() {
+        List<List<String>> indexes = List.of(List.of("ownerIds", "done"));
+
+        assertTrue(MongoIndexManager.isCovered(List.of("ownerIds"), indexes));
+        assertTrue(MongoIndexManager.isCovered(List.of("done", "ownerIds"), indexes));
+        assertFalse(MongoIndexManager.isCovered(List.of("done"), indexes));
+        assertFalse(MongoIndexManager.isCovered(List.of("ownerIds", "deadline"), indexes));
+    }
+
+    @Test
+    void hasCollectionScan_ShouldInspectWinningPlan() {
+        Document collectionScan = Document.parse("{queryPlanner: {winningPlan: {stage: 'COLLSCAN'}}}");
+        Document indexScan = Document.parse("{queryPlanner: {winningPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'owner_done'}}}}");
+        Document nestedScan = Document.parse("{queryPlanner: {winningPlan: {stage: 'SUBPLAN', inputStages: [{stage: 'IXSCAN'}, {stage: 'COLLSCAN'}]}}}");
+
+        assertTrue(MongoIndexManager.hasCollectionScan(collectionScan));
+        assertFalse(MongoIndexManager.hasCollectionScan(indexScan));
+        assertTrue(MongoIndexManager.hasCollectionScan(nestedScan));
+    }
+
+    /**
+     * Asks a real MongoDB planner for every repository query. Runs only when a database is
+     * provided, e.g. MONGO_EXPLAIN_URI=mongodb://localhost:27017/tasks-explain
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGO_EXPLAIN_URI", matches = ".+")
+    void repositoryQueries_ShouldNotBePlannedAsCollectionScan() {
+        String uri = System.getenv("MONGO_EXPLAIN_URI");
+        try (var client = MongoClients.create(uri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "tasks-explain");
+            MongoIndexManager indexManager = new MongoIndexManager(mongoTemplate);
+
+            indexManager.ensureIndexes();
+
+            assertEquals(List.of(), indexManager.verifyQueryCoverage());
+            assertEquals(List.of(), indexManager.findCollectionScans());
+        }
+    }
+
+    private MongoMappingContext mappingContext() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(Collections.emptyList()).getSimpleTypeHolder());
+        return mappingContext;
+    }
+}
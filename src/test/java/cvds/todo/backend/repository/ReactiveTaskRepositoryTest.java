@@ -0,0 +1,160 @@
+package cvds.todo.backend.repository;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.ReactiveTaskService;
+import cvds.todo.backend.services.TaskCache;
+import cvds.todo.backend.services.TaskEventService;
+import cvds.todo.backend.services.TaskService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the reactive task service and ReactiveTaskRepository against an in-process MongoDB server.
+ */
+class ReactiveTaskRepositoryTest {
+    private MongoServer server;
+    private MongoClient client;
+    private ReactiveMongoTemplate mongoTemplate;
+    private ReactiveTaskRepository taskRepository;
+    private TaskCache taskCache;
+    private TaskEventService taskEventService;
+    private ReactiveTaskService reactiveTaskService;
+    private UserModel owner;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new ReactiveMongoTemplate(client, "tasks-test");
+        taskRepository = new ReactiveMongoRepositoryFactory(mongoTemplate).getRepository(ReactiveTaskRepository.class);
+        taskCache = new TaskCache(new SimpleMeterRegistry(), true, 1000, 60000);
+        taskEventService = mock(TaskEventService.class);
+        reactiveTaskService = new ReactiveTaskService(taskRepository, mongoTemplate, new TaskService(), taskCache, taskEventService);
+        owner = new UserModel();
+        owner.setId("owner");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void getAllTasks_ShouldStreamOnlyWhatIsRequested() {
+        List<TaskModel> tasks = IntStream.range(0, 1200).mapToObj(i -> this.genTask("task" + i, "owner")).toList();
+        taskRepository.insert(tasks).blockLast();
+        taskRepository.insert(this.genTask("other", "other")).block();
+
+        StepVerifier.create(reactiveTaskService.getAllTasks(owner), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .assertNext(task -> assertNull(task.getOwnerIds()))
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenCancel()
+                .verify();
+        assertEquals(1200, reactiveTaskService.getAllTasks(owner).count().block());
+    }
+
+    @Test
+    void findTasks_ShouldRejectAnInvalidQueryBeforeStreaming() throws Exception {
+        taskRepository.insert(List.of(this.genTask("1", "owner"), this.genTask("2", "owner"))).blockLast();
+        TaskQueryModel invalid = new TaskQueryModel();
+        invalid.setSort("name");
+        TaskQueryModel query = new TaskQueryModel();
+        query.setSort("-priority");
+        query.setLimit(1);
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> reactiveTaskService.findTasks(owner, invalid));
+        assertEquals(1, reactiveTaskService.findTasks(owner, query).count().block());
+    }
+
+    @Test
+    void writes_ShouldCheckVersionsAndKeepTheBlockingApiInSync() {
+        AtomicInteger loads = new AtomicInteger();
+        taskCache.getAllTasks("owner", () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        TaskModel task = new TaskModel();
+        task.setName("Task");
+        task.setPriority(2);
+
+        TaskModel created = reactiveTaskService.createTask(task, owner).block();
+        taskCache.getAllTasks("owner", () -> {
+            loads.incrementAndGet();
+            return List.of(created);
+        });
+        TaskModel patch = new TaskModel();
+        patch.setDescription("New description");
+        TaskModel updated = reactiveTaskService.updateTask(created.getId(), patch, owner, 0L).block();
+
+        assertEquals(2, loads.get());
+        assertEquals("Task", updated.getName());
+        assertEquals("New description", updated.getDescription());
+        assertEquals(1, updated.getVersion());
+        StepVerifier.create(reactiveTaskService.updateTask(created.getId(), patch, owner, 0L))
+                .expectError(TaskException.TaskVersionMismatchException.class)
+                .verify();
+        verify(taskEventService).publish(eq("owner"), eq(TaskEventType.CREATED), eq(created.getId()), any());
+        verify(taskEventService).publish(eq("owner"), eq(TaskEventType.UPDATED), eq(created.getId()), any());
+    }
+
+    @Test
+    void deleteTask_ShouldOnlyDeleteTasksOfTheOwnerAndLeaveATombstone() {
+        taskRepository.insert(this.genTask("task", "owner")).block();
+        UserModel other = new UserModel();
+        other.setId("other");
+
+        StepVerifier.create(reactiveTaskService.deleteTask("task", other))
+                .expectError(TaskException.TaskNotFoundException.class)
+                .verify();
+        TaskModel deleted = reactiveTaskService.deleteTask("task", owner).block();
+
+        assertEquals("task", deleted.getId());
+        assertNull(deleted.getOwnerIds());
+        assertEquals(0, taskRepository.count().block());
+        List<TaskTombstoneModel> tombstones = mongoTemplate.findAll(TaskTombstoneModel.class).collectList().block();
+        assertEquals(1, tombstones.size());
+        assertEquals("task", tombstones.get(0).getTaskId());
+        StepVerifier.create(reactiveTaskService.getTaskById("task", owner))
+                .expectError(TaskException.TaskNotFoundException.class)
+                .verify();
+        verify(taskEventService).publish("owner", TaskEventType.DELETED, "task", null);
+    }
+
+    private TaskModel genTask(String id, String ownerId) {
+        TaskModel task = new TaskModel(id);
+        task.setName("Task");
+        task.setPriority(3);
+        task.setOwnerIds(List.of(ownerId));
+        return task;
+    }
+}
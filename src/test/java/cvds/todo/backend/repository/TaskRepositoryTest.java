@@ -0,0 +1,206 @@
+package cvds.todo.backend.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import cvds.todo.backend.exceptions.AppException;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.TaskCache;
+import cvds.todo.backend.services.TaskEventService;
+import cvds.todo.backend.services.TaskService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Runs the derived queries of TaskRepository against an in-process MongoDB server.
+ */
+class TaskRepositoryTest {
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private TaskRepository taskRepository;
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "tasks-test");
+        taskRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(TaskRepository.class);
+        taskTombstoneRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(TaskTombstoneRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void ownerQueries_ShouldNotReadOwners() {
+        TaskModel task = new TaskModel("task");
+        task.setName("Task");
+        task.setPriority(3);
+        task.setOwnerIds(List.of("owner"));
+        taskRepository.insert(task);
+
+        List<TaskModel> tasks = taskRepository.findByOwnerIdsContaining("owner");
+        TaskModel byId = taskRepository.findFirstByOwnerIdsContainingAndId("owner", "task");
+
+        assertEquals(1, tasks.size());
+        assertEquals("Task", tasks.get(0).getName());
+        assertEquals(3, tasks.get(0).getPriority());
+        assertNull(tasks.get(0).getOwnerIds());
+        assertEquals("task", byId.getId());
+        assertNull(byId.getOwnerIds());
+        assertNull(taskRepository.findFirstByOwnerIdsContainingAndId("other", "task"));
+    }
+
+    @Test
+    void deleteByOwner_ShouldOnlyDeleteTasksOfTheOwner() {
+        taskRepository.insert(this.genTask("1", "owner"));
+        taskRepository.insert(this.genTask("2", "owner"));
+        taskRepository.insert(this.genTask("3", "other"));
+
+        assertEquals(2, taskRepository.deleteByOwnerIdsContaining("owner"));
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void updateTask_ShouldPatchInPlaceAndCheckVersion() throws AppException {
+        TaskService taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "taskCache", new TaskCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(taskService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(taskService, "taskEventService", mock(TaskEventService.class));
+        UserModel owner = new UserModel();
+        owner.setId("owner");
+        TaskModel stored = taskRepository.insert(this.genTask("task", "owner"));
+        assertEquals(0, stored.getVersion());
+
+        TaskModel patch = new TaskModel();
+        patch.setDescription("New description");
+        TaskModel updated = taskService.updateTask("task", patch, owner, 0L);
+
+        assertEquals("Task", updated.getName());
+        assertEquals("New description", updated.getDescription());
+        assertEquals(3, updated.getPriority());
+        assertEquals(1, updated.getVersion());
+        assertThrows(TaskException.TaskVersionMismatchException.class, () -> taskService.updateTask("task", patch, owner, 0L));
+        UserModel other = new UserModel();
+        other.setId("other");
+        assertThrows(TaskException.TaskNotFoundException.class, () -> taskService.updateTask("task", patch, other, null));
+        assertEquals(List.of("owner"), taskRepository.findById("task").orElseThrow().getOwnerIds());
+    }
+
+    @Test
+    void deleteTask_ShouldDeleteATaskUpdatedConcurrently() throws AppException {
+        MongoTemplate racingTemplate = spy(mongoTemplate);
+        TaskService taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "taskCache", new TaskCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(taskService, "mongoTemplate", racingTemplate);
+        ReflectionTestUtils.setField(taskService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(taskService, "taskTombstoneRepository", taskTombstoneRepository);
+        ReflectionTestUtils.setField(taskService, "taskEventService", mock(TaskEventService.class));
+        UserModel owner = new UserModel();
+        owner.setId("owner");
+        taskRepository.insert(this.genTask("task", "owner"));
+        TaskModel patch = new TaskModel();
+        patch.setName("Renamed");
+        // Another request patches the task while the delete is running
+        doAnswer(invocation -> {
+            taskService.updateTask("task", patch, owner, null);
+            return invocation.callRealMethod();
+        }).when(racingTemplate).findAndRemove(any(Query.class), eq(TaskModel.class));
+
+        TaskModel deleted = taskService.deleteTask("task", owner);
+
+        assertEquals("Renamed", deleted.getName());
+        assertEquals(1, deleted.getVersion());
+        assertEquals(0, taskRepository.count());
+        assertEquals(1, taskTombstoneRepository.count());
+        UserModel other = new UserModel();
+        other.setId("other");
+        taskRepository.insert(this.genTask("owned", "owner"));
+        assertThrows(TaskException.TaskNotFoundException.class, () -> taskService.deleteTask("owned", other));
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void getTasksVersion_ShouldChangeOnEveryWrite() throws AppException {
+        TaskService taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "taskCache", new TaskCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(taskService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(taskService, "taskEventService", mock(TaskEventService.class));
+        UserModel owner = new UserModel();
+        owner.setId("owner");
+        TaskModel patch = new TaskModel();
+        patch.setName("Renamed");
+
+        String empty = taskService.getTasksVersion(owner);
+        taskRepository.insert(this.genTask("1", "owner"));
+        String created = taskService.getTasksVersion(owner);
+        taskService.updateTask("1", patch, owner, null);
+        String updated = taskService.getTasksVersion(owner);
+        taskRepository.insert(this.genTask("2", "other"));
+
+        assertEquals(3, Set.of(empty, created, updated).size());
+        assertEquals(updated, taskService.getTasksVersion(owner));
+    }
+
+    @Test
+    void getChanges_ShouldOnlyReturnChangesAfterTheWatermark() throws AppException {
+        TaskService taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "taskCache", new TaskCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(taskService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(taskService, "taskTombstoneRepository", taskTombstoneRepository);
+        UserModel owner = new UserModel();
+        owner.setId("owner");
+        LocalDateTime since = LocalDateTime.now().minusMinutes(10);
+        TaskModel old = this.genTask("old", "owner");
+        old.setUpdatedAt(since.minusMinutes(1));
+        TaskModel changed = this.genTask("changed", "owner");
+        changed.setUpdatedAt(since.plusMinutes(1));
+        taskRepository.insert(List.of(old, changed));
+        taskTombstoneRepository.insert(List.of(
+                new TaskTombstoneModel("owner", "deleted", since.plusMinutes(2)),
+                new TaskTombstoneModel("owner", "forgotten", since.minusMinutes(2)),
+                new TaskTombstoneModel("other", "other", since.plusMinutes(2))));
+
+        TaskChangesModel changes = taskService.getChanges(owner, since);
+
+        assertFalse(changes.isFullResync());
+        assertEquals(List.of("changed"), changes.getTasks().stream().map(TaskModel::getId).toList());
+        assertNull(changes.getTasks().get(0).getOwnerIds());
+        assertEquals(List.of("deleted"), changes.getDeletedIds());
+    }
+
+    private TaskModel genTask(String id, String ownerId) {
+        TaskModel task = new TaskModel(id);
+        task.setName("Task");
+        task.setPriority(3);
+        task.setOwnerIds(List.of(ownerId));
+        return task;
+    }
+}
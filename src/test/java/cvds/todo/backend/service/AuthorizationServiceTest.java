@@ -4,7 +4,7 @@ import cvds.todo.backend.enums.Role;
 import cvds.todo.backend.exceptions.SessionException;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.services.AuthorizationService;
-import cvds.todo.backend.services.SessionService;
+import cvds.todo.backend.interfeces.SessionsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -13,12 +13,13 @@ import org.mockito.MockitoAnnotations;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class AuthorizationServiceTest {
 
     @Mock
-    private SessionService sessionService;
+    private SessionsService sessionService;
 
     @InjectMocks
     private AuthorizationService authorizationService;
@@ -70,4 +71,11 @@ class AuthorizationServiceTest {
 
         assertThrows(SessionException.ExpiredSessionException.class, () -> authorizationService.adminResource(validToken));
     }
+
+    @Test
+    void testAdminResource_ResolvedUser_ShouldNotLookUpSession() {
+        assertDoesNotThrow(() -> authorizationService.adminResource(adminUser));
+        assertThrows(SessionException.InvalidSessionException.class, () -> authorizationService.adminResource(nonAdminUser));
+        verifyNoInteractions(sessionService);
+    }
 }
@@ -0,0 +1,182 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.enums.Role;
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.MappedSessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSessionStoreTest {
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = new UserModel();
+        user.setId(UUID.randomUUID().toString());
+        user.setUsername("testUser");
+        user.setEmail("test@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setRole(Role.ROLE_ADMIN.name());
+    }
+
+    @Test
+    void save_ShouldKeepOnlyIdentityAndRole() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+        String sessionId = UUID.randomUUID().toString();
+
+        store.save(sessionId, user, 1000L, 1234L);
+        SessionStore.Entry entry = store.find(sessionId);
+
+        assertEquals(user.getId(), entry.getUser().getId());
+        assertEquals(user.getUsername(), entry.getUser().getUsername());
+        assertEquals(user.getRole(), entry.getUser().getRole());
+        assertNull(entry.getUser().getPassword(), "The password hash must not be stored.");
+        assertEquals(1234L, entry.getExpirationTime());
+        assertEquals(1000L, entry.getCreatedTime());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void save_ShouldKeepTheEmailOnlyWhenItFits() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+        String sessionId = UUID.randomUUID().toString();
+        String longSessionId = UUID.randomUUID().toString();
+        UserModel longEmailUser = new UserModel();
+        longEmailUser.setId(user.getId());
+        longEmailUser.setUsername(user.getUsername());
+        longEmailUser.setEmail("a".repeat(80) + "@example.com");
+
+        store.save(sessionId, user, 1000L, 1234L);
+        store.save(longSessionId, longEmailUser, 1000L, 1234L);
+
+        assertEquals("test@example.com", store.find(sessionId).getUser().getEmail());
+        assertNull(store.find(longSessionId).getUser().getEmail());
+        assertEquals(user.getUsername(), store.find(longSessionId).getUser().getUsername());
+    }
+
+    @Test
+    void save_ShouldKeepMultiByteUsernamesThatFit() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+        String sessionId = UUID.randomUUID().toString();
+        // 16 characters of 2 bytes each fill the 32 bytes of the username exactly
+        user.setUsername("ñ".repeat(16));
+
+        store.save(sessionId, user, 1000L, 1234L);
+
+        assertEquals("ñ".repeat(16), store.find(sessionId).getUser().getUsername());
+    }
+
+    @Test
+    void save_UserThatDoesNotFit_ShouldBeRejected() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+        UserModel legacyUser = new UserModel();
+        legacyUser.setId("65f1c0ffee0123456789abcd");
+        legacyUser.setUsername("legacyUser");
+        UserModel longNameUser = new UserModel();
+        longNameUser.setId(UUID.randomUUID().toString());
+        // 31 characters but 33 bytes, truncating it would split the last character
+        longNameUser.setUsername("a".repeat(29) + "ñé");
+
+        assertThrows(IllegalArgumentException.class, () -> store.save(UUID.randomUUID().toString(), legacyUser, 1000L, 1234L));
+        assertThrows(IllegalArgumentException.class, () -> store.save(UUID.randomUUID().toString(), longNameUser, 1000L, 1234L));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void find_UnknownOrMalformedSession_ShouldReturnNull() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+
+        assertNull(store.find(UUID.randomUUID().toString()));
+        assertNull(store.find("not-a-uuid"));
+        assertFalse(store.remove("not-a-uuid"));
+    }
+
+    @Test
+    void remove_ShouldKeepOtherSessionsReachable() {
+        MappedSessionStore store = MappedSessionStore.offHeap(1000);
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String sessionId = UUID.randomUUID().toString();
+            store.save(sessionId, user, 1000L, i);
+            sessions.add(sessionId);
+        }
+
+        for (int i = 0; i < sessions.size(); i += 2) {
+            assertTrue(store.remove(sessions.get(i)));
+        }
+
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionStore.Entry entry = store.find(sessions.get(i));
+            if (i % 2 == 0) {
+                assertNull(entry);
+            } else {
+                assertNotNull(entry, "Session " + i + " was lost by the deletion of its neighbours.");
+                assertEquals(i, entry.getExpirationTime());
+            }
+        }
+        assertEquals(500, store.size());
+    }
+
+    @Test
+    void renewAndExpire_ShouldOnlyRemoveExpiredSessions() {
+        MappedSessionStore store = MappedSessionStore.offHeap(16);
+        String sessionId = UUID.randomUUID().toString();
+        store.save(sessionId, user, 1000L, 100L);
+
+        assertTrue(store.renew(sessionId, 500L));
+        assertEquals(1000L, store.find(sessionId).getCreatedTime());
+        assertFalse(store.expire(sessionId, 200L));
+        assertTrue(store.expire(sessionId, 600L));
+        assertNull(store.find(sessionId));
+    }
+
+    @Test
+    void removeExpired_ShouldSweepExpiredSessions() {
+        MappedSessionStore store = MappedSessionStore.offHeap(100);
+        String active = UUID.randomUUID().toString();
+        store.save(active, user, 1000L, 1000L);
+        for (int i = 0; i < 50; i++) {
+            store.save(UUID.randomUUID().toString(), user, 1000L, 10L);
+        }
+
+        assertEquals(50, store.removeExpired(500L));
+        assertEquals(1, store.size());
+        assertNotNull(store.find(active));
+    }
+
+    @Test
+    void evictOverflow_ShouldBoundTheStore() {
+        MappedSessionStore store = MappedSessionStore.offHeap(100);
+        for (int i = 0; i < 100; i++) {
+            store.save(UUID.randomUUID().toString(), user, 1000L, i);
+        }
+
+        assertEquals(40, store.evictOverflow(60));
+        assertEquals(60, store.size());
+    }
+
+    @Test
+    void mapped_ShouldKeepSessionsAfterReopen(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("sessions.db");
+        String sessionId = UUID.randomUUID().toString();
+
+        try (MappedSessionStore store = MappedSessionStore.mapped(file, 64)) {
+            store.save(sessionId, user, 1000L, 4321L);
+        }
+
+        try (MappedSessionStore reopened = MappedSessionStore.mapped(file, 64)) {
+            assertEquals(1, reopened.size());
+            assertEquals(user.getId(), reopened.find(sessionId).getUser().getId());
+            assertEquals(4321L, reopened.find(sessionId).getExpirationTime());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package cvds.todo.backend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import cvds.todo.backend.interfeces.SessionStore;
+import cvds.todo.backend.model.SessionModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.MongoIndexManager;
+import cvds.todo.backend.services.MongoSessionStore;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the store against an in-process MongoDB wire protocol server. Two stores over the same
+ * database stand for two instances of the application.
+ */
+class MongoSessionStoreTest {
+    private static final long HOUR = 3_600_000;
+    private static final long CREATED = 1_700_000_000_000L;
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(client, "sessions-test");
+        meterRegistry = new SimpleMeterRegistry();
+        user = new UserModel();
+        user.setId(UUID.randomUUID().toString());
+        user.setUsername("testUser");
+        user.setEmail("test@mail.com");
+        user.setRole("ROLE_USER");
+        user.setPassword("hash");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void indexManager_ShouldCreateTtlIndex() {
+        MongoIndexManager indexManager = new MongoIndexManager(mongoTemplate);
+        indexManager.manage(SessionModel.class);
+
+        indexManager.ensureIndexes();
+
+        IndexInfo ttlIndex = mongoTemplate.indexOps(SessionModel.class).getIndexInfo().stream()
+                .filter(index -> index.getName().equals("session_ttl"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals("expiresAt", ttlIndex.getIndexFields().get(0).getKey());
+        assertTrue(ttlIndex.getExpireAfter().isPresent());
+    }
+
+    @Test
+    void constructor_ShouldNotWaitForAnUnreachableDatabase() {
+        try (MongoClient unreachable = MongoClients.create("mongodb://localhost:1/?serverSelectionTimeoutMS=30000")) {
+            long start = System.nanoTime();
+
+            assertDoesNotThrow(() -> new MongoSessionStore(new MongoTemplate(unreachable, "sessions-test"),
+                    new SimpleMeterRegistry(), 1000, 1000, 100));
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+    @Test
+    void find_ShouldSeeSessionsCreatedByAnotherInstance() {
+        SessionStore first = this.store(1000, 1000);
+        SessionStore second = new MongoSessionStore(mongoTemplate, new SimpleMeterRegistry(), 1000, 1000, 100);
+        long expirationTime = System.currentTimeMillis() + HOUR;
+
+        first.save("session", user, CREATED, expirationTime);
+        SessionStore.Entry entry = second.find("session");
+
+        assertNotNull(entry);
+        assertEquals(user.getId(), entry.getUser().getId());
+        assertEquals(user.getUsername(), entry.getUser().getUsername());
+        assertEquals(user.getRole(), entry.getUser().getRole());
+        assertNull(entry.getUser().getPassword());
+        assertEquals(expirationTime, entry.getExpirationTime());
+        assertEquals(CREATED, entry.getCreatedTime());
+    }
+
+    @Test
+    void find_ShouldAnswerRepeatedLookupsFromNearCache() {
+        SessionStore store = this.store(60_000, 60_000);
+        store.save("session", user, CREATED, System.currentTimeMillis() + HOUR);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(store.find("session"));
+            assertNull(store.find("unknown"));
+        }
+
+        assertEquals(19.0, meterRegistry.get("sessions.near_cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("sessions.near_cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void find_ShouldKeepNegativeResultUntilItExpires() throws InterruptedException {
+        SessionStore first = this.store(0, 0);
+        SessionStore second = new MongoSessionStore(mongoTemplate, new SimpleMeterRegistry(), 50, 50, 100);
+
+        assertNull(second.find("session"));
+        first.save("session", user, CREATED, System.currentTimeMillis() + HOUR);
+        assertNull(second.find("session"));
+
+        Thread.sleep(60);
+        assertNotNull(second.find("session"));
+    }
+
+    @Test
+    void removeAndRenew_ShouldUpdateSharedSession() {
+        SessionStore first = this.store(0, 0);
+        SessionStore second = new MongoSessionStore(mongoTemplate, new SimpleMeterRegistry(), 0, 0, 100);
+        long now = System.currentTimeMillis();
+        first.save("session", user, CREATED, now + 1000);
+
+        assertTrue(second.renew("session", now + HOUR));
+        assertEquals(now + HOUR, first.find("session").getExpirationTime());
+        assertEquals(CREATED, first.find("session").getCreatedTime());
+
+        assertTrue(second.remove("session"));
+        assertNull(first.find("session"));
+        assertFalse(first.renew("session", now + HOUR));
+    }
+
+    @Test
+    void removeExpiredAndExpire_ShouldOnlyDeleteExpiredSessions() {
+        SessionStore store = this.store(0, 0);
+        long now = System.currentTimeMillis();
+        store.save("expired", user, CREATED, now - 1000);
+        store.save("otherExpired", user, CREATED, now - 1000);
+        store.save("active", user, CREATED, now + HOUR);
+
+        assertFalse(store.expire("active", now));
+        assertTrue(store.expire("expired", now));
+        assertEquals(1, store.removeExpired(now));
+        assertEquals(1, store.size());
+        assertNotNull(store.find("active"));
+    }
+
+    @Test
+    void evictOverflow_ShouldRemoveSessionsThatExpireFirst() {
+        SessionStore store = this.store(0, 0);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            store.save("session" + i, user, CREATED, now + HOUR + i);
+        }
+
+        assertEquals(2, store.evictOverflow(3));
+
+        assertNull(store.find("session0"));
+        assertNull(store.find("session1"));
+        assertNotNull(store.find("session2"));
+        assertEquals(3, store.size());
+    }
+
+    private SessionStore store(long nearCacheTtlMillis, long negativeCacheTtlMillis) {
+        return new MongoSessionStore(mongoTemplate, meterRegistry, nearCacheTtlMillis, negativeCacheTtlMillis, 100);
+    }
+}
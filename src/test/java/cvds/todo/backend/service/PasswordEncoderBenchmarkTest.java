@@ -0,0 +1,52 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.Config;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many logins per second one core can check with each password setting, to choose
+ * todo.passwords.* per environment. It runs on a single thread, so the result is per core.
+ * Run it with: mvn test -Dtest=PasswordEncoderBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordEncoderBenchmarkTest {
+    private static final String PASSWORD = "password123";
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    @Test
+    void loginsPerSecondPerCore() {
+        Config config = new Config();
+        Map<String, PasswordEncoder> settings = new LinkedHashMap<>();
+        settings.put("bcrypt strength 8", config.passwordEncoder("bcrypt", 8, 19456, 2));
+        settings.put("bcrypt strength 10", config.passwordEncoder("bcrypt", 10, 19456, 2));
+        settings.put("bcrypt strength 12", config.passwordEncoder("bcrypt", 12, 19456, 2));
+        settings.put("argon2 19 MiB x 2", config.passwordEncoder("argon2", 10, 19456, 2));
+        settings.put("argon2 64 MiB x 3", config.passwordEncoder("argon2", 10, 65536, 3));
+
+        System.out.printf("%-22s %14s %12s%n", "setting", "logins/s/core", "ms/login");
+        for (Map.Entry<String, PasswordEncoder> setting : settings.entrySet()) {
+            PasswordEncoder encoder = setting.getValue();
+            String hash = encoder.encode(PASSWORD);
+            encoder.matches(PASSWORD, hash);
+
+            int logins = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                assertTrue(encoder.matches(PASSWORD, hash));
+                logins++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MEASURE_NANOS);
+
+            double perSecond = logins * 1e9 / elapsed;
+            System.out.printf("%-22s %14.1f %12.2f%n", setting.getKey(), perSecond, 1000 / perSecond);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.exceptions.UserException;
+import cvds.todo.backend.services.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService hashingService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hashingService.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldUseSharedEncoderAndRecordLatency() throws UserException {
+        hashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 1, 4, 5000);
+
+        String hash = hashingService.encode("password123");
+
+        assertTrue(hashingService.matches("password123", hash));
+        assertFalse(hashingService.matches("otherPassword", hash));
+        assertEquals(1, meterRegistry.get("passwords.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("passwords.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_ShouldRejectWhenPoolAndQueueAreFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        hashingService = new PasswordHashingService(this.blockingEncoder(started), meterRegistry, 1, 1, 5000);
+
+        CompletableFuture.runAsync(this::encodeQuietly);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture.runAsync(this::encodeQuietly);
+        this.awaitQueued(1);
+
+        assertThrows(UserException.UserServiceBusyException.class, () -> hashingService.encode("password123"));
+        assertEquals(1.0, meterRegistry.get("passwords.hashing.queue").gauge().value());
+        assertEquals(1.0, meterRegistry.get("passwords.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void matches_ShouldGiveUpAfterTimeout() {
+        hashingService = new PasswordHashingService(this.blockingEncoder(new CountDownLatch(1)), meterRegistry, 1, 1, 50);
+
+        assertThrows(UserException.UserServiceBusyException.class, () -> hashingService.matches("password123", "hash"));
+        assertEquals(1.0, meterRegistry.get("passwords.hashing.rejected").counter().count());
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                this.await();
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                this.await();
+                return true;
+            }
+
+            private void await() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private void encodeQuietly() {
+        try {
+            hashingService.encode("password123");
+        } catch (UserException ignored) {
+        }
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("passwords.hashing.queue").gauge().value() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
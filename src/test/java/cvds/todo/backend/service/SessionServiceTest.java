@@ -2,7 +2,11 @@ package cvds.todo.backend.service;
 
 import cvds.todo.backend.exceptions.SessionException;
 import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.InMemorySessionStore;
+import cvds.todo.backend.services.MappedSessionStore;
 import cvds.todo.backend.services.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -72,4 +76,95 @@ class SessionServiceTest {
         assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.invalidateSession(sessionId));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testGetUserFromSession_ShouldRecordLookupMetrics() throws SessionException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionService service = new SessionService(new InMemorySessionStore(), meterRegistry);
+        String sessionId = service.createSessionCookie(user);
+
+        service.getUserFromSession(sessionId);
+        assertThrows(SessionException.SessionNotFoundException.class, () -> service.getUserFromSession("unknown"));
+        assertThrows(SessionException.SessionNotFoundException.class, () -> service.getUserFromSession(null));
+
+        assertEquals(1, meterRegistry.get("sessions.lookups").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("sessions.lookups").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("sessions.active").gauge().value());
+    }
+
+    @Test
+    void testCleanExpiredSessions_ShouldRemoveOnlyExpiredSessions() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionService service = new SessionService(new InMemorySessionStore(), meterRegistry);
+        ReflectionTestUtils.setField(service, "sessionMaxAgeMinutes", 0L);
+        String expiredSession = service.createSessionCookie(user);
+        Thread.sleep(5);
+        ReflectionTestUtils.setField(service, "sessionMaxAgeMinutes", 30L);
+        String activeSession = service.createSessionCookie(user);
+
+        service.cleanExpiredSessions();
+
+        assertEquals(1, meterRegistry.get("sessions.expirations").counter().count());
+        assertEquals(1, meterRegistry.get("sessions.active").gauge().value());
+        assertThrows(SessionException.SessionNotFoundException.class, () -> service.getUserFromSession(expiredSession));
+        assertEquals(user, service.getUserFromSession(activeSession));
+    }
+
+    @Test
+    void testRenewSession_ShouldKeepSessionAfterOriginalExpiration() throws Exception {
+        InMemorySessionStore store = new InMemorySessionStore();
+        SessionService service = new SessionService(store, new SimpleMeterRegistry());
+        String sessionId = UUID.randomUUID().toString();
+        // Expires shortly instead of right away, so the renewal is not raced by the clock
+        store.save(sessionId, user, System.currentTimeMillis(), System.currentTimeMillis() + 50);
+
+        assertTrue(service.renewSession(sessionId));
+        Thread.sleep(60);
+        service.cleanExpiredSessions();
+
+        assertEquals(user, service.getUserFromSession(sessionId));
+    }
+
+    @Test
+    void testRenewSession_ShouldNotGoPastTheAbsoluteLifetime() throws Exception {
+        InMemorySessionStore store = new InMemorySessionStore();
+        SessionService service = new SessionService(store, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "absoluteMaxAgeMinutes", 60L);
+        long now = System.currentTimeMillis();
+        String sessionId = UUID.randomUUID().toString();
+        // Logged in 59 minutes ago and about to expire, a renewal may only add the last minute
+        store.save(sessionId, user, now - 59 * 60000, now + 1000);
+
+        assertTrue(service.renewSession(sessionId));
+        long cappedExpiration = store.find(sessionId).getExpirationTime();
+        assertEquals(now + 60000, cappedExpiration, 1000);
+
+        assertFalse(service.renewSession(sessionId));
+        assertEquals(user, service.getUserFromSession(sessionId));
+        assertEquals(cappedExpiration, store.find(sessionId).getExpirationTime());
+    }
+
+    @Test
+    void testCreateSessionCookie_OverCapacity_ShouldEvictOldestSession() throws SessionException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionService service = new SessionService(new InMemorySessionStore(), meterRegistry);
+        ReflectionTestUtils.setField(service, "maxActiveSessions", 2);
+
+        String first = service.createSessionCookie(user);
+        String second = service.createSessionCookie(user);
+        String third = service.createSessionCookie(user);
+
+        assertThrows(SessionException.SessionNotFoundException.class, () -> service.getUserFromSession(first));
+        assertDoesNotThrow(() -> service.getUserFromSession(second));
+        assertDoesNotThrow(() -> service.getUserFromSession(third));
+        assertEquals(1, meterRegistry.get("sessions.evictions").counter().count());
+    }
+
+    @Test
+    void testCreateSessionCookie_UserTheStoreCannotKeep_ShouldBeRejected() {
+        SessionService service = new SessionService(MappedSessionStore.offHeap(16), new SimpleMeterRegistry());
+        user.setId("not-a-uuid");
+
+        SessionException exception = assertThrows(SessionException.class, () -> service.createSessionCookie(user));
+        assertEquals(422, exception.getStatusCode());
+    }
+}
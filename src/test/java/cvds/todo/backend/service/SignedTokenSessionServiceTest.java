@@ -0,0 +1,162 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.exceptions.SessionException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import cvds.todo.backend.model.RevokedTokenModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.repository.MongoIndexManager;
+import cvds.todo.backend.services.SignedTokenSessionService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedTokenSessionServiceTest {
+    private static final String SECRET = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[32]);
+
+    private SignedTokenSessionService sessionService;
+    private SimpleMeterRegistry meterRegistry;
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sessionService = new SignedTokenSessionService(SECRET, 1000, meterRegistry);
+        user = new UserModel();
+        user.setId(UUID.randomUUID().toString());
+        user.setUsername("testUser");
+        user.setEmail("test@example.com");
+        user.setRole("ROLE_USER");
+    }
+
+    @Test
+    void getUserFromSession_ShouldReadUserFromToken() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+
+        UserModel resolved = sessionService.getUserFromSession(token);
+
+        assertEquals(user.getId(), resolved.getId());
+        assertEquals(user.getUsername(), resolved.getUsername());
+        assertEquals(user.getEmail(), resolved.getEmail());
+        assertEquals(user.getRole(), resolved.getRole());
+        assertNull(resolved.getPassword());
+        assertEquals(1.0, meterRegistry.get("sessions.lookups").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void getUserFromSession_ShouldBeValidInAnotherInstanceWithTheSameSecret() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+        SignedTokenSessionService otherInstance = new SignedTokenSessionService(SECRET, 1000, new SimpleMeterRegistry());
+
+        assertEquals(user.getId(), otherInstance.getUserFromSession(token).getId());
+    }
+
+    @Test
+    void constructor_ShouldRefuseAMissingOrShortSecret() {
+        String shortSecret = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[16]);
+
+        assertThrows(IllegalStateException.class, () -> new SignedTokenSessionService("", 1000, new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new SignedTokenSessionService(shortSecret, 1000, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void getUserFromSession_ShouldRejectTamperedToken() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+        UserModel admin = new UserModel();
+        admin.setId(user.getId());
+        admin.setUsername(user.getUsername());
+        admin.setRole("ROLE_ADMIN");
+        String forged = new SignedTokenSessionService(SECRET.replace('A', 'B'), 1000, new SimpleMeterRegistry()).createSessionCookie(admin);
+        String tampered = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThrows(SessionException.InvalidSessionException.class, () -> sessionService.getUserFromSession(forged));
+        assertThrows(SessionException.InvalidSessionException.class, () -> sessionService.getUserFromSession(tampered));
+        assertThrows(SessionException.InvalidSessionException.class, () -> sessionService.getUserFromSession("not-a-token"));
+        assertThrows(SessionException.InvalidSessionException.class, () -> sessionService.getUserFromSession(null));
+    }
+
+    @Test
+    void getUserFromSession_ShouldRejectExpiredToken() throws SessionException {
+        ReflectionTestUtils.setField(sessionService, "sessionMaxAgeMinutes", -1L);
+        String token = sessionService.createSessionCookie(user);
+
+        assertThrows(SessionException.ExpiredSessionException.class, () -> sessionService.getUserFromSession(token));
+    }
+
+    @Test
+    void invalidateSession_ShouldRevokeOnlyThatToken() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+        String otherToken = sessionService.createSessionCookie(user);
+
+        sessionService.invalidateSession(token);
+
+        assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.getUserFromSession(token));
+        assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.invalidateSession(token));
+        assertDoesNotThrow(() -> sessionService.getUserFromSession(otherToken));
+        assertEquals(1.0, meterRegistry.get("sessions.revoked").gauge().value());
+    }
+
+    @Test
+    void invalidateSession_ShouldRevokeEverySpellingOfTheToken() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        char last = token.charAt(token.length() - 1);
+        // The last character of a 32 byte MAC only carries 4 bits, flipping its lowest bit decodes to the same MAC
+        String respelled = token.substring(0, token.length() - 1) + alphabet.charAt(alphabet.indexOf(last) ^ 1);
+        assertEquals(user.getId(), sessionService.getUserFromSession(respelled).getId());
+
+        sessionService.invalidateSession(token);
+
+        assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.getUserFromSession(respelled));
+        assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.invalidateSession(respelled));
+    }
+
+    @Test
+    void pollRevocations_ShouldRevokeTokensLoggedOutInAnotherInstance() throws SessionException {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "sessions-test");
+            SignedTokenSessionService instance = new SignedTokenSessionService(SECRET, 1000, new SimpleMeterRegistry(),
+                    mongoTemplate, new MongoIndexManager(mongoTemplate));
+            SignedTokenSessionService otherInstance = new SignedTokenSessionService(SECRET, 1000, new SimpleMeterRegistry(),
+                    mongoTemplate, new MongoIndexManager(mongoTemplate));
+            String token = instance.createSessionCookie(user);
+            String otherToken = instance.createSessionCookie(user);
+
+            instance.invalidateSession(token);
+            // Until its next poll the other instance has not seen the revocation
+            assertDoesNotThrow(() -> otherInstance.getUserFromSession(token));
+            otherInstance.pollRevocations();
+
+            assertThrows(SessionException.SessionNotFoundException.class, () -> otherInstance.getUserFromSession(token));
+            assertDoesNotThrow(() -> otherInstance.getUserFromSession(otherToken));
+            otherInstance.invalidateSession(otherToken);
+            assertThrows(SessionException.SessionNotFoundException.class, () -> instance.invalidateSession(otherToken));
+            assertThrows(SessionException.SessionNotFoundException.class, () -> instance.getUserFromSession(otherToken));
+            assertEquals(2, mongoTemplate.count(new Query(), RevokedTokenModel.class));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void cleanExpiredSessions_ShouldKeepRevokedTokensUntilTheyExpire() throws SessionException {
+        String token = sessionService.createSessionCookie(user);
+        sessionService.invalidateSession(token);
+
+        sessionService.cleanExpiredSessions();
+
+        assertThrows(SessionException.SessionNotFoundException.class, () -> sessionService.getUserFromSession(token));
+        assertEquals(1.0, meterRegistry.get("sessions.revoked").gauge().value());
+    }
+}
@@ -0,0 +1,104 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.services.TaskCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getAllTasks_ShouldLoadOnceUntilInvalidated() {
+        TaskCache cache = new TaskCache(meterRegistry, true, 1000, 60000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAllTasks("user", () -> this.load(loads));
+        List<TaskModel> cached = cache.getAllTasks("user", () -> this.load(loads));
+        assertEquals(1, loads.get());
+        assertThrows(UnsupportedOperationException.class, () -> cached.add(new TaskModel()));
+
+        cache.invalidate("user");
+        cache.getAllTasks("user", () -> this.load(loads));
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "tasks").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_ShouldOnlyForgetTheGivenTasksAndTheUserLists() {
+        TaskCache cache = new TaskCache(meterRegistry, true, 1000, 60000);
+        TaskModel first = this.genTask("1");
+        TaskModel second = this.genTask("2");
+        cache.getTask("user", "1", () -> first);
+        cache.getTask("user", "2", () -> second);
+        cache.getVersion("user", () -> "1");
+        cache.getVersion("other", () -> "1");
+
+        cache.invalidate("user", "1");
+
+        assertNull(cache.getTask("user", "1", () -> null));
+        assertSame(second, cache.getTask("user", "2", () -> null));
+        assertEquals("2", cache.getVersion("user", () -> "2"));
+        assertEquals("1", cache.getVersion("other", () -> "2"));
+    }
+
+    @Test
+    void invalidateUser_ShouldForgetEveryEntryOfTheUser() {
+        TaskCache cache = new TaskCache(meterRegistry, true, 1000, 60000);
+        cache.getTask("user", "1", () -> this.genTask("1"));
+        cache.getTask("other", "1", () -> this.genTask("1"));
+
+        cache.invalidateUser("user");
+
+        assertNull(cache.getTask("user", "1", () -> null));
+        assertNotNull(cache.getTask("other", "1", () -> null));
+    }
+
+    @Test
+    void invalidateUser_ShouldForgetTheListsAndTasksCachedAgain() {
+        TaskCache cache = new TaskCache(meterRegistry, true, 1000, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getAllTasks("user", () -> this.load(loads));
+        cache.getVersion("user", () -> "1");
+        cache.getTask("user", "1", () -> this.genTask("1"));
+
+        cache.invalidateUser("user");
+        cache.getTask("user", "1", () -> this.genTask("1"));
+        cache.getTask("user", "2", () -> null);
+        cache.invalidateUser("user");
+
+        cache.getAllTasks("user", () -> this.load(loads));
+        assertEquals(2, loads.get());
+        assertEquals("2", cache.getVersion("user", () -> "2"));
+        assertNull(cache.getTask("user", "1", () -> null));
+    }
+
+    @Test
+    void disabledCache_ShouldAlwaysLoad() {
+        TaskCache cache = new TaskCache(meterRegistry, false, 0, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAllTasks("user", () -> this.load(loads));
+        cache.getAllTasks("user", () -> this.load(loads));
+
+        assertFalse(cache.isEnabled());
+        assertEquals(2, loads.get());
+    }
+
+    private List<TaskModel> load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of(this.genTask("1"));
+    }
+
+    private TaskModel genTask(String id) {
+        TaskModel task = new TaskModel();
+        task.setId(id);
+        return task;
+    }
+}
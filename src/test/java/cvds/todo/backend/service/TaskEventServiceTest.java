@@ -0,0 +1,145 @@
+package cvds.todo.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cvds.todo.backend.enums.TaskEventType;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.TaskEventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TaskEventServiceTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private TaskEventService eventService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        eventService.shutdown();
+    }
+
+    @Test
+    void publish_ShouldSendEventWithoutOwnersToStreamsOfTheOwner() throws Exception {
+        eventService = this.recordingService("local", 8, 5);
+        eventService.subscribe(this.genUser("owner"));
+        TaskModel task = new TaskModel("task");
+        task.setName("Task");
+        task.setOwnerIds(List.of("owner"));
+
+        eventService.publish("owner", TaskEventType.CREATED, "task", task);
+        eventService.publish("other", TaskEventType.DELETED, "other", null);
+
+        String event = this.awaitSent(2).get(1);
+        assertTrue(event.startsWith("event:created\ndata:"), event);
+        assertTrue(event.contains("\"name\":\"Task\""), event);
+        assertFalse(event.contains("ownerIds"), event);
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void dispatch_WithoutStreams_ShouldNotSerialize() throws Exception {
+        eventService = this.recordingService("local", 8, 5);
+
+        eventService.publish("owner", TaskEventType.UPDATED, "task", new TaskModel("task"));
+
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    void publish_WithChangeStreamSource_ShouldBeIgnored() throws Exception {
+        eventService = this.recordingService("change-stream", 8, 5);
+        eventService.subscribe(this.genUser("owner"));
+
+        eventService.publish("owner", TaskEventType.UPDATED, "task", new TaskModel("task"));
+
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    void subscribe_OverTheLimitPerUser_ShouldBeRejected() throws Exception {
+        eventService = this.recordingService("local", 8, 1);
+        eventService.subscribe(this.genUser("owner"));
+
+        TaskException exception = assertThrows(TaskException.class, () -> eventService.subscribe(this.genUser("owner")));
+        assertEquals(429, exception.getStatusCode());
+        assertEquals(1, eventService.getConnections());
+    }
+
+    @Test
+    void dispatch_ToSlowClient_ShouldDropItsStream() throws Exception {
+        eventService = new TaskEventService(objectMapper, meterRegistry, "local", 1, 2, 5, 60000) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public synchronized void send(Set<DataWithMediaType> items) {
+                        sending.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+            }
+        };
+        eventService.subscribe(this.genUser("owner"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        eventService.publish("owner", TaskEventType.DELETED, "1", null);
+        eventService.publish("owner", TaskEventType.DELETED, "2", null);
+        assertEquals(1, eventService.getConnections());
+        eventService.publish("owner", TaskEventType.DELETED, "3", null);
+
+        assertEquals(0, eventService.getConnections());
+        assertEquals(1, meterRegistry.get("tasks.stream.dropped").counter().count());
+    }
+
+    private TaskEventService recordingService(String source, int bufferSize, int maxStreamsPerUser) {
+        return new TaskEventService(objectMapper, meterRegistry, source, 1, bufferSize, maxStreamsPerUser, 60000) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+                        sent.add(items.stream().map(item -> String.valueOf(item.getData())).collect(Collectors.joining()));
+                    }
+                };
+            }
+        };
+    }
+
+    private List<String> awaitSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return sent;
+    }
+
+    private UserModel genUser(String id) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,96 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.enums.Difficulty;
+import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.services.TaskGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskGeneratorTest {
+    private TaskGenerator generator;
+
+    @AfterEach
+    void tearDown() {
+        generator.shutdown();
+    }
+
+    @Test
+    void generate_ShouldWriteEveryTaskInBoundedChunks() throws Exception {
+        generator = new TaskGenerator(4, 100);
+        ConcurrentLinkedQueue<List<TaskModel>> chunks = new ConcurrentLinkedQueue<>();
+        AtomicLong progress = new AtomicLong();
+
+        long generated = generator.generate("owner", 1050, 7, chunks::add, progress::addAndGet);
+
+        assertEquals(1050, generated);
+        assertEquals(1050, progress.get());
+        assertEquals(11, chunks.size());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 100));
+        assertEquals(1050, chunks.stream().flatMap(List::stream).map(TaskModel::getId).distinct().count());
+    }
+
+    @Test
+    void generate_SameSeed_ShouldGiveSameTasksWithAnyNumberOfThreads() throws Exception {
+        generator = new TaskGenerator(1, 50);
+        List<String> serial = this.generatedIds(generator, 42);
+        generator.shutdown();
+
+        generator = new TaskGenerator(4, 50);
+        assertEquals(serial, this.generatedIds(generator, 42));
+        assertNotEquals(serial, this.generatedIds(generator, 43));
+    }
+
+    @Test
+    void generate_FailingWriter_ShouldStopAndReportTheError() {
+        generator = new TaskGenerator(2, 10);
+        AtomicLong written = new AtomicLong();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> generator.generate("owner", 10_000, 1, tasks -> {
+            if (written.addAndGet(tasks.size()) > 100) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        }, processed -> {
+        }));
+
+        assertEquals("Database unavailable", exception.getCause().getMessage());
+        assertTrue(written.get() < 10_000);
+    }
+
+    @Test
+    void generateChunk_ShouldCreateValidTasks() {
+        generator = new TaskGenerator(1, 1000);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<TaskModel> tasks = generator.generateChunk("owner", 1, 0, 0, 1000, now);
+
+        assertEquals(1000, tasks.size());
+        for (TaskModel task : tasks) {
+            assertTrue(task.getPriority() >= 1 && task.getPriority() <= 5);
+            assertDoesNotThrow(() -> Difficulty.valueOf(task.getDifficulty()));
+            assertFalse(task.getCreatedAt().isAfter(now));
+            assertFalse(task.getUpdatedAt().isBefore(task.getCreatedAt()));
+            assertTrue(task.getDeadline().isAfter(task.getCreatedAt()));
+            assertEquals(List.of("owner"), task.getOwnerIds());
+        }
+        long highPriority = tasks.stream().filter(task -> task.getPriority() == 3).count();
+        assertTrue(highPriority > 250 && highPriority < 450, "Priority 3 should be the most common one");
+    }
+
+    private List<String> generatedIds(TaskGenerator generator, long seed) throws Exception {
+        ConcurrentLinkedQueue<TaskModel> tasks = new ConcurrentLinkedQueue<>();
+        generator.generate("owner", 500, seed, tasks::addAll, processed -> {
+        });
+        return tasks.stream().sorted(Comparator.comparing(TaskModel::getName, Comparator.comparingInt(name -> Integer.parseInt(name.substring(6)))))
+                .map(TaskModel::getId)
+                .toList();
+    }
+}
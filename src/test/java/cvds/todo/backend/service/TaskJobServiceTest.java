@@ -0,0 +1,111 @@
+package cvds.todo.backend.service;
+
+import cvds.todo.backend.enums.JobStatus;
+import cvds.todo.backend.exceptions.TaskException;
+import cvds.todo.backend.model.TaskJobModel;
+import cvds.todo.backend.model.UserModel;
+import cvds.todo.backend.services.TaskJobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJobServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TaskJobService jobService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.shutdown();
+    }
+
+    @Test
+    void submit_ShouldRunJobAndKeepItsProgress() throws Exception {
+        jobService = new TaskJobService(1, 1, 60000);
+        UserModel user = this.genUser("1");
+
+        TaskJobModel job = jobService.submit(user, "test", running -> {
+            running.setTotal(2);
+            running.addProcessed(2);
+        });
+
+        TaskJobModel finished = this.awaitFinished(job.getId(), user);
+        assertEquals(JobStatus.DONE, finished.getStatus());
+        assertEquals(2, finished.getProcessed());
+        assertNotNull(finished.getFinishedAt());
+    }
+
+    @Test
+    void submit_FailingWork_ShouldMarkJobAsFailed() throws Exception {
+        jobService = new TaskJobService(1, 1, 60000);
+        UserModel user = this.genUser("1");
+
+        TaskJobModel job = jobService.submit(user, "test", running -> {
+            throw new IllegalStateException("Database unavailable");
+        });
+
+        TaskJobModel finished = this.awaitFinished(job.getId(), user);
+        assertEquals(JobStatus.FAILED, finished.getStatus());
+        assertEquals("Database unavailable", finished.getError());
+    }
+
+    @Test
+    void submit_ShouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        jobService = new TaskJobService(1, 1, 60000);
+        UserModel user = this.genUser("1");
+        CountDownLatch started = new CountDownLatch(1);
+
+        jobService.submit(user, "test", running -> {
+            started.countDown();
+            release.await();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.submit(user, "test", running -> release.await());
+
+        TaskException exception = assertThrows(TaskException.class, () -> jobService.submit(user, "test", running -> {
+        }));
+        assertEquals(503, exception.getStatusCode());
+    }
+
+    @Test
+    void getJob_OfAnotherUser_ShouldThrowNotFound() throws Exception {
+        jobService = new TaskJobService(1, 1, 60000);
+        TaskJobModel job = jobService.submit(this.genUser("1"), "test", running -> {
+        });
+
+        assertThrows(TaskException.TaskJobNotFoundException.class, () -> jobService.getJob(job.getId(), this.genUser("2")));
+    }
+
+    @Test
+    void removeFinishedJobs_ShouldForgetJobsAfterRetention() throws Exception {
+        jobService = new TaskJobService(1, 1, 0);
+        UserModel user = this.genUser("1");
+        TaskJobModel job = jobService.submit(user, "test", running -> {
+        });
+        this.awaitFinished(job.getId(), user);
+
+        Thread.sleep(5);
+        jobService.removeFinishedJobs();
+
+        assertThrows(TaskException.TaskJobNotFoundException.class, () -> jobService.getJob(job.getId(), user));
+    }
+
+    private TaskJobModel awaitFinished(String jobId, UserModel user) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        TaskJobModel job = jobService.getJob(jobId, user);
+        while (job.getStatus() == JobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private UserModel genUser(String id) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        return user;
+    }
+}
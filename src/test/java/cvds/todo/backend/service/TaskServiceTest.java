@@ -1,18 +1,52 @@
 package cvds.todo.backend.service;
 
 import cvds.todo.backend.enums.Difficulty;
+import cvds.todo.backend.enums.JobStatus;
+import cvds.todo.backend.enums.TaskEventType;
 import cvds.todo.backend.exceptions.AppException;
 import cvds.todo.backend.exceptions.TaskException;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.repository.TaskRepository;
+import cvds.todo.backend.repository.TaskTombstoneRepository;
+import cvds.todo.backend.model.TaskBatchOperationModel;
+import cvds.todo.backend.model.TaskBatchResultModel;
+import cvds.todo.backend.model.TaskChangesModel;
+import cvds.todo.backend.model.TaskJobModel;
 import cvds.todo.backend.model.TaskModel;
+import cvds.todo.backend.model.TaskPageModel;
+import cvds.todo.backend.model.TaskQueryModel;
+import cvds.todo.backend.model.TaskTombstoneModel;
+import cvds.todo.backend.services.TaskCache;
+import cvds.todo.backend.services.TaskEventService;
+import cvds.todo.backend.services.TaskGenerator;
+import cvds.todo.backend.services.TaskJobService;
 import cvds.todo.backend.services.TaskService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -30,6 +64,18 @@ class TaskServiceTest {
     private static final String TASK_DESCRIPTION = "Description 1";
     @Mock
     private TaskRepository taskRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private TaskTombstoneRepository taskTombstoneRepository;
+    @Mock
+    private TaskEventService taskEventService;
+    @Spy
+    private TaskJobService taskJobService = new TaskJobService(1, 10, 60000);
+    @Spy
+    private TaskGenerator taskGenerator = new TaskGenerator(2, 100);
+    @Spy
+    private TaskCache taskCache = new TaskCache(new SimpleMeterRegistry(), false, 0, 0);
     @InjectMocks
     private TaskService taskService;
 
@@ -38,6 +84,11 @@ class TaskServiceTest {
         MockitoAnnotations.openMocks(this);
     }
 
+    @AfterEach
+    void tearDown() {
+        taskJobService.shutdown();
+    }
+
     @Test
     void getAllTasks_ShouldReturnAllTasks() throws AppException {
         // Arrange
@@ -54,6 +105,221 @@ class TaskServiceTest {
         verify(taskRepository, times(1)).findByOwnerIdsContaining(user.getId());
     }
 
+    @Test
+    void getAllTasks_WithCache_ShouldReadOnceUntilATaskIsCreated() throws AppException {
+        ReflectionTestUtils.setField(taskService, "taskCache", new TaskCache(new SimpleMeterRegistry(), true, 1000, 60000));
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskModel task = this.genTaskModel("1", "Task 1", "Description 1", false, user);
+        when(taskRepository.findByOwnerIdsContaining(user.getId())).thenReturn(List.of(task));
+        when(taskRepository.insert(any(TaskModel.class))).thenReturn(task);
+
+        taskService.getAllTasks(user);
+        taskService.getAllTasks(user);
+        verify(taskRepository, times(1)).findByOwnerIdsContaining(user.getId());
+
+        taskService.createTask(this.genTaskModel(null, TASK_NAME, TASK_DESCRIPTION, false, user), user);
+        taskService.getAllTasks(user);
+        verify(taskRepository, times(2)).findByOwnerIdsContaining(user.getId());
+    }
+
+    @Test
+    void getTasksVersion_ShouldCombineCountVersionsAndLastUpdate() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        Document group = new Document("count", 3).append("versions", 7L).append("lastUpdatedAt", new Date(1700000000000L));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(TaskModel.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(group), new Document()));
+
+        assertEquals("3-7-1700000000000", taskService.getTasksVersion(user));
+        verify(taskRepository, never()).findByOwnerIdsContaining(anyString());
+    }
+
+    @Test
+    void getTasksVersion_WithoutTasks_ShouldReturnEmptyVersion() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(TaskModel.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        assertEquals("0", taskService.getTasksVersion(user));
+    }
+
+    @Test
+    void getTasksPage_MoreTasksThanSize_ShouldReturnCursor() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        List<TaskModel> stored = Arrays.asList(
+                this.genTaskModel("1", "Task 1", "Description 1", false, user),
+                this.genTaskModel("2", "Task 2", "Description 2", false, user),
+                this.genTaskModel("3", "Task 3", "Description 3", true, user)
+        );
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(stored);
+
+        TaskPageModel page = taskService.getTasksPage(user, null, 2);
+
+        assertEquals(2, page.getTasks().size(), "The page should be cut at the requested size.");
+        assertNotNull(page.getNextCursor(), "A next cursor is expected when more tasks exist.");
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    void getTasksPage_LastPage_ShouldNotReturnCursor() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskModel task = this.genTaskModel("1", "Task 1", "Description 1", false, user);
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(List.of(task));
+
+        TaskPageModel first = taskService.getTasksPage(user, null, 1);
+        assertNull(first.getNextCursor(), "No cursor is expected on the last page.");
+    }
+
+    @Test
+    void getTasksPage_CursorRoundTrip_ShouldFilterAfterLastId() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(Arrays.asList(
+                this.genTaskModel("a", "Task a", "Description a", false, user),
+                this.genTaskModel("b", "Task b", "Description b", false, user)
+        ));
+
+        TaskPageModel page = taskService.getTasksPage(user, null, 1);
+        taskService.getTasksPage(user, page.getNextCursor(), 1);
+
+        verify(mongoTemplate).find(argThat((Query query) -> query.getQueryObject().toJson().contains("\"$gt\": \"a\"")), eq(TaskModel.class));
+    }
+
+    @Test
+    void getTasksPage_InvalidSizeOrCursor_ShouldThrowException() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.getTasksPage(user, null, 0));
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.getTasksPage(user, null, TaskService.MAX_PAGE_SIZE + 1));
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.getTasksPage(user, "%%%", 10));
+    }
+
+    @Test
+    void findTasks_ShouldCombineFiltersSortAndLimitInOneQuery() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskQueryModel taskQuery = new TaskQueryModel();
+        taskQuery.setDone(false);
+        taskQuery.setPriorityMin(3);
+        taskQuery.setPriorityMax(5);
+        taskQuery.setDeadlineBefore(LocalDateTime.of(2024, 12, 31, 0, 0));
+        taskQuery.setSort("-deadline");
+        taskQuery.setLimit(20);
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(List.of());
+
+        taskService.findTasks(user, taskQuery);
+
+        verify(mongoTemplate).find(argThat((Query query) -> {
+            Document filter = query.getQueryObject();
+            return filter.get("ownerIds").equals(user.getId())
+                    && filter.get("done").equals(false)
+                    && filter.get("priority", Document.class).equals(new Document("$gte", 3).append("$lte", 5))
+                    && filter.get("deadline", Document.class).equals(new Document("$lt", LocalDateTime.of(2024, 12, 31, 0, 0)))
+                    && query.getSortObject().toJson().equals("{\"deadline\": -1, \"_id\": 1}")
+                    && query.getLimit() == 20
+                    && query.getFieldsObject().toJson().equals("{\"ownerIds\": 0}");
+        }), eq(TaskModel.class));
+    }
+
+    @Test
+    void findTasks_WithFields_ShouldProjectOnlyRequestedFields() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskQueryModel taskQuery = new TaskQueryModel();
+        taskQuery.setFields("name, done");
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(List.of());
+
+        taskService.findTasks(user, taskQuery);
+
+        verify(mongoTemplate).find(argThat((Query query) ->
+                query.getFieldsObject().equals(new Document("name", 1).append("done", 1).append("_id", 0))), eq(TaskModel.class));
+    }
+
+    @Test
+    void findTasks_UnknownField_ShouldThrowException() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskQueryModel taskQuery = new TaskQueryModel();
+        taskQuery.setFields("name,ownerIds");
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.findTasks(user, taskQuery));
+    }
+
+    @Test
+    void findTasks_InvalidSortOrLimit_ShouldThrowException() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskQueryModel unknownSort = new TaskQueryModel();
+        unknownSort.setSort("description");
+        TaskQueryModel tooLarge = new TaskQueryModel();
+        tooLarge.setLimit(TaskService.MAX_PAGE_SIZE + 1);
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.findTasks(user, unknownSort));
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.findTasks(user, tooLarge));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void runBatch_MixedOperations_ShouldReportEachResultAndWriteOnce() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskModel owned = this.genTaskModel("owned", "Task owned", "Description", false, user);
+        TaskModel patch = new TaskModel();
+        patch.setName("Renamed");
+        patch.setDone(true);
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(List.of(owned));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TaskModel.class)).thenReturn(bulkOperations);
+
+        List<TaskBatchResultModel> results = taskService.runBatch(user, List.of(
+                new TaskBatchOperationModel("create", null, this.genTaskModel(null, "New task", "Description", false, user)),
+                new TaskBatchOperationModel("create", null, new TaskModel()),
+                new TaskBatchOperationModel("update", "owned", patch),
+                new TaskBatchOperationModel("update", "unknown", patch),
+                new TaskBatchOperationModel("delete", "owned", null),
+                new TaskBatchOperationModel("rename", "owned", null)
+        ));
+
+        assertEquals(List.of(201, 400, 200, 404, 200, 400), results.stream().map(TaskBatchResultModel::getStatus).toList());
+        assertNotNull(results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        verify(bulkOperations).insert(argThat((TaskModel task) -> task.getName().equals("New task")
+                && task.getOwnerIds().equals(List.of(user.getId()))));
+        verify(bulkOperations).updateOne(any(Query.class), argThat((Update update) ->
+                update.getUpdateObject().get("$set", Document.class).get("name").equals("Renamed")));
+        verify(bulkOperations).remove(any(Query.class));
+        verify(bulkOperations, times(1)).execute();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(TaskModel.class));
+        verify(taskTombstoneRepository).insert(argThat((List<TaskTombstoneModel> tombstones) ->
+                tombstones.size() == 1 && tombstones.get(0).getTaskId().equals("owned")));
+        verify(taskEventService).publish(eq(user.getId()), eq(TaskEventType.CREATED), eq(results.get(0).getId()), any(TaskModel.class));
+        verify(taskEventService).publish(eq(user.getId()), eq(TaskEventType.UPDATED), eq("owned"), any(TaskModel.class));
+        verify(taskEventService).publish(user.getId(), TaskEventType.DELETED, "owned", null);
+    }
+
+    @Test
+    void runBatch_WriteErrors_ShouldBeReportedOnTheirOperation() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TaskModel.class)).thenReturn(bulkOperations);
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        List<TaskBatchResultModel> results = taskService.runBatch(user, List.of(
+                new TaskBatchOperationModel("delete", "unknown", null),
+                new TaskBatchOperationModel("create", null, this.genTaskModel(null, "First", "Description", false, user)),
+                new TaskBatchOperationModel("create", null, this.genTaskModel(null, "Second", "Description", false, user))
+        ));
+
+        assertEquals(List.of(404, 201, 409), results.stream().map(TaskBatchResultModel::getStatus).toList());
+        assertEquals("duplicate key", results.get(2).getError());
+    }
+
+    @Test
+    void runBatch_EmptyOrTooLarge_ShouldThrowException() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        List<TaskBatchOperationModel> tooLarge = Collections.nCopies(TaskService.MAX_BATCH_SIZE + 1,
+                new TaskBatchOperationModel("delete", "id", null));
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.runBatch(user, List.of()));
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.runBatch(user, tooLarge));
+        verifyNoInteractions(mongoTemplate);
+    }
+
     /**
      * Test case to verify retrieval of an existing task by ID.
      * This method tests the getTaskById() method of TaskService.
@@ -128,9 +394,8 @@ class TaskServiceTest {
         TaskModel existingTask = this.genTaskModel(EXISTING_TASK_ID, "Old Task", "Old Description", false, user);
         TaskModel updatedTask = this.genTaskModel(EXISTING_TASK_ID, "Updated Task", "Updated Description", true, user);
 
-        when(taskRepository.findById(EXISTING_TASK_ID)).thenReturn(Optional.of(existingTask));
-        when(taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), EXISTING_TASK_ID)).thenReturn(existingTask);
-        when(taskRepository.save(any(TaskModel.class))).thenReturn(updatedTask);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(TaskModel.class)))
+                .thenReturn(updatedTask);
 
         TaskModel result = taskService.updateTask(EXISTING_TASK_ID, updatedTask, user);
 
@@ -140,6 +405,39 @@ class TaskServiceTest {
                 () -> assertEquals(updatedTask.getDescription(), result.getDescription(), "Task description should be updated"),
                 () -> assertEquals(updatedTask.isDone(), result.isDone(), "Task status should be updated")
         );
+        verify(taskRepository, never()).save(any(TaskModel.class));
+    }
+
+    @Test
+    void updateTask_ShouldSetOnlyPatchedFieldsOnTaskOfTheUser() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskModel patch = new TaskModel();
+        patch.setName("Updated Task");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(TaskModel.class)))
+                .thenReturn(patch);
+
+        taskService.updateTask(EXISTING_TASK_ID, patch, user, 4L);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(TaskModel.class));
+        assertEquals(new Document("_id", EXISTING_TASK_ID).append("ownerIds", user.getId()).append("version", 4L),
+                query.getValue().getQueryObject());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(Set.of("name", "done", "updatedAt"), set.keySet());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void updateTask_StaleVersion_ShouldThrowVersionMismatch() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        TaskModel patch = new TaskModel();
+        patch.setName("Updated Task");
+        when(mongoTemplate.exists(any(Query.class), eq(TaskModel.class))).thenReturn(true);
+
+        TaskException exception = assertThrows(TaskException.TaskVersionMismatchException.class,
+                () -> taskService.updateTask(EXISTING_TASK_ID, patch, user, 1L));
+        assertEquals(412, exception.getStatusCode());
     }
 
 
@@ -172,11 +470,47 @@ class TaskServiceTest {
     void deleteTask_ExistingTask_ShouldDeleteTask() throws AppException {
         UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
         TaskModel taskToDelete = this.genTaskModel(EXISTING_TASK_ID, TASK_NAME, TASK_DESCRIPTION, false, user);
-        when(taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), EXISTING_TASK_ID)).thenReturn(taskToDelete);
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(TaskModel.class))).thenReturn(taskToDelete);
 
         TaskModel deletedTask = taskService.deleteTask(EXISTING_TASK_ID, user);
 
         assertEquals(taskToDelete, deletedTask, "Deleted task should match the existing task.");
+        verify(taskTombstoneRepository).insert(argThat((TaskTombstoneModel tombstone) ->
+                tombstone.getTaskId().equals(EXISTING_TASK_ID) && tombstone.getOwnerId().equals(user.getId())));
+        verify(taskEventService).publish(user.getId(), TaskEventType.DELETED, EXISTING_TASK_ID, null);
+    }
+
+    @Test
+    void getChanges_ShouldReturnUpdatedTasksAndDeletedIds() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        List<TaskModel> updated = List.of(this.genTaskModel("1", TASK_NAME, TASK_DESCRIPTION, false, user));
+        when(taskTombstoneRepository.findByOwnerIdAndDeletedAtAfter(user.getId(), since)).thenReturn(List.of(
+                new TaskTombstoneModel(user.getId(), "2", since.plusMinutes(1)),
+                new TaskTombstoneModel(user.getId(), "2", since.plusMinutes(2))));
+        when(taskRepository.findByOwnerIdsContainingAndUpdatedAtAfter(user.getId(), since)).thenReturn(updated);
+
+        TaskChangesModel changes = taskService.getChanges(user, since);
+
+        assertFalse(changes.isFullResync());
+        assertEquals(updated, changes.getTasks());
+        assertEquals(List.of("2"), changes.getDeletedIds());
+        assertTrue(changes.getWatermark().isBefore(LocalDateTime.now()));
+        verify(taskRepository, never()).findByOwnerIdsContaining(anyString());
+    }
+
+    @Test
+    void getChanges_AfterDeleteAllOrTooOld_ShouldAskForFullResync() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        when(taskTombstoneRepository.findByOwnerIdAndDeletedAtAfter(user.getId(), since))
+                .thenReturn(List.of(TaskTombstoneModel.reset(user.getId(), since.plusMinutes(1))));
+        when(taskRepository.findByOwnerIdsContaining(user.getId())).thenReturn(Collections.emptyList());
+
+        assertTrue(taskService.getChanges(user, since).isFullResync());
+        assertTrue(taskService.getChanges(user, LocalDateTime.now().minusDays(TaskTombstoneModel.RETENTION_DAYS + 1)).isFullResync());
+        assertTrue(taskService.getChanges(user, null).isFullResync());
+        verify(taskRepository, never()).findByOwnerIdsContainingAndUpdatedAtAfter(anyString(), any());
     }
 
     /**
@@ -186,7 +520,7 @@ class TaskServiceTest {
     @Test
     void deleteTask_NonExistingTask_ShouldThrowTaskNotFoundException() throws AppException {
         UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
-        when(taskRepository.findFirstByOwnerIdsContainingAndId(user.getId(), NON_EXISTING_TASK_ID)).thenReturn(null);
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(TaskModel.class))).thenReturn(null);
 
         TaskException.TaskNotFoundException thrownException = assertThrows(
                 TaskException.TaskNotFoundException.class,
@@ -194,7 +528,7 @@ class TaskServiceTest {
         );
 
         assertEquals("Task: " + NON_EXISTING_TASK_ID + ", not found in the database.", thrownException.getMessage());
-        verify(taskRepository, times(1)).findFirstByOwnerIdsContainingAndId(user.getId(), NON_EXISTING_TASK_ID);
+        verify(taskTombstoneRepository, never()).insert(any(TaskTombstoneModel.class));
     }
 
 
@@ -214,6 +548,18 @@ class TaskServiceTest {
         assertTrue(generatedTasks.size() >= 100 && generatedTasks.size() <= 1000, "Number of generated tasks should be between 100 and 1000.");
     }
 
+    @Test
+    void generateExamples_ShouldLeaveAResetTombstone() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        when(taskRepository.insert(any(List.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        taskService.generateExamples(user);
+
+        verify(taskTombstoneRepository).insert(argThat((TaskTombstoneModel tombstone) ->
+                tombstone.isReset() && tombstone.getOwnerId().equals(user.getId())));
+        verify(taskEventService).publish(user.getId(), TaskEventType.RESYNC, null, null);
+    }
+
 
 //    /**
 //     * Tests the deletion of all existing tasks in the repository.
@@ -279,6 +625,44 @@ class TaskServiceTest {
         }
     }
 
+    @Test
+    void generateTasks_ShouldInsertInChunksAndAskForResync() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        List<Long> progress = Collections.synchronizedList(new ArrayList<>());
+
+        assertEquals(250, taskService.generateTasks(user, 250, 42, progress::add));
+
+        verify(mongoTemplate, times(3)).insert(anyCollection(), eq(TaskModel.class));
+        assertEquals(250, progress.stream().mapToLong(Long::longValue).sum());
+        verify(taskTombstoneRepository).insert(argThat((TaskTombstoneModel tombstone) -> tombstone.isReset()));
+        verify(taskEventService).publish(user.getId(), TaskEventType.RESYNC, null, null);
+    }
+
+    @Test
+    void generateTasksAsync_WithSeveralWorkers_ShouldCountEveryTask() throws Exception {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        ReflectionTestUtils.setField(taskService, "taskGenerator", new TaskGenerator(8, 10));
+
+        TaskJobModel job = taskService.generateTasksAsync(user, 20000, 42);
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (job.getStatus() == JobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(JobStatus.DONE, job.getStatus());
+        assertEquals(20000, job.getProcessed());
+        verify(mongoTemplate, times(2000)).insert(anyCollection(), eq(TaskModel.class));
+    }
+
+    @Test
+    void generateTasksAsync_CountOutOfRange_ShouldThrowException() {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+
+        assertThrows(TaskException.TaskInvalidValueException.class, () -> taskService.generateTasksAsync(user, 0, 42));
+        assertThrows(TaskException.TaskInvalidValueException.class,
+                () -> taskService.generateTasksAsync(user, TaskService.MAX_GENERATED_TASKS + 1, 42));
+    }
+
     @Test
     void isValidTask_NullName_ShouldThrowException() {
         UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
@@ -348,6 +732,44 @@ class TaskServiceTest {
      * @param done            the completion status of the task.
      * @return a TaskModel object populated with the provided parameters.
      */
+    @Test
+    void deleteAllTasks_ShouldDeleteOnServerAndReturnCount() throws AppException {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        when(taskRepository.deleteByOwnerIdsContaining(user.getId())).thenReturn(3L);
+
+        long deleted = taskService.deleteAllTasks(user);
+
+        assertEquals(3, deleted);
+        verify(taskRepository, never()).findByOwnerIdsContaining(anyString());
+        verify(taskTombstoneRepository).insert(argThat((TaskTombstoneModel tombstone) -> tombstone.isReset()));
+    }
+
+    @Test
+    void deleteAllTasksAsync_ShouldDeleteInChunksAndReportProgress() throws Exception {
+        UserModel user = this.genUserModel(UUID.randomUUID().toString(), "testUser");
+        when(mongoTemplate.count(any(Query.class), eq(TaskModel.class))).thenReturn(3L);
+        when(mongoTemplate.find(any(Query.class), eq(TaskModel.class))).thenReturn(
+                Arrays.asList(this.genTaskModel("1", "Task 1", "Description 1", false, user),
+                        this.genTaskModel("2", "Task 2", "Description 2", false, user)),
+                Collections.singletonList(this.genTaskModel("3", "Task 3", "Description 3", false, user)),
+                Collections.emptyList());
+        when(mongoTemplate.remove(any(Query.class), eq(TaskModel.class)))
+                .thenReturn(DeleteResult.acknowledged(2), DeleteResult.acknowledged(1));
+
+        TaskJobModel job = taskService.deleteAllTasksAsync(user);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (job.getStatus() == JobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(JobStatus.DONE, job.getStatus());
+        assertEquals(3, job.getTotal());
+        assertEquals(3, job.getProcessed());
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(TaskModel.class));
+        verify(taskTombstoneRepository).insert(argThat((TaskTombstoneModel tombstone) -> tombstone.isReset()));
+        assertSame(job, taskJobService.getJob(job.getId(), user));
+    }
+
     private TaskModel genTaskModel(String taskId, String taskName, String taskDescription, boolean done, UserModel owner) {
         final TaskModel newTask = new TaskModel();
         newTask.setId(taskId);
@@ -1,21 +1,42 @@
 package cvds.todo.backend.service;
 
+import cvds.todo.backend.Config;
 import cvds.todo.backend.enums.Role;
 import cvds.todo.backend.exceptions.UserException;
 import cvds.todo.backend.model.UserModel;
 import cvds.todo.backend.repository.UserRepository;
+import cvds.todo.backend.services.PasswordHashingService;
 import cvds.todo.backend.services.UserService;
+import cvds.todo.backend.services.UsernameCache;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class UserServiceTest {
@@ -26,6 +47,16 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Spy
+    private PasswordHashingService passwordHashingService =
+            new PasswordHashingService(new BCryptPasswordEncoder(), new SimpleMeterRegistry(), 1, 4, 5000);
+
+    @Spy
+    private UsernameCache usernameCache = new UsernameCache(new SimpleMeterRegistry(), true, 100, 60000, 60000);
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -39,9 +70,8 @@ class UserServiceTest {
         user.setPassword("password123");
         user.setRole(Role.ROLE_USER.name());
 
-        when(userRepository.findByUsername(any())).thenReturn(null);
-        when(userRepository.findByEmail(any())).thenReturn(null);
-        when(userRepository.save(any(UserModel.class))).thenReturn(user);
+        when(userRepository.findFirstByUsernameOrEmail(any(), any())).thenReturn(null);
+        when(userRepository.insert(any(UserModel.class))).thenReturn(user);
 
         UserModel createdUser = userService.createUserAsUser(user);
 
@@ -59,13 +89,67 @@ class UserServiceTest {
         user.setPassword("password123");
         user.setRole(Role.ROLE_USER.name());
 
-        when(userRepository.findByUsername("existingUser")).thenReturn(user);
+        UserModel existing = new UserModel();
+        existing.setId("1234");
+        existing.setUsername("existingUser");
+        when(userRepository.findFirstByUsernameOrEmail("existingUser", "existing@example.com")).thenReturn(existing);
 
         UserException.UserConflictException exception = assertThrows(UserException.UserConflictException.class, () -> {
             userService.createUserAsUser(user);
         });
 
         assertEquals("User with username: existingUser, already exists in the database.", exception.getMessage());
+        assertThrows(UserException.UserConflictException.class, () -> userService.createUserAsUser(user));
+        verify(userRepository, times(1)).findFirstByUsernameOrEmail(any(), any());
+    }
+
+    @Test
+    void testCreateUserAsUser_EmailAlreadyExists() {
+        UserModel existing = new UserModel();
+        existing.setUsername("otherUser");
+        existing.setEmail("existing@example.com");
+        UserModel user = new UserModel();
+        user.setUsername("newUser");
+        user.setEmail("existing@example.com");
+        user.setPassword("password123");
+
+        when(userRepository.findFirstByUsernameOrEmail("newUser", "existing@example.com")).thenReturn(existing);
+
+        UserException.UserEmailConflictException exception = assertThrows(UserException.UserEmailConflictException.class, () -> {
+            userService.createUserAsUser(user);
+        });
+
+        assertEquals("User with email: existing@example.com, already exists in the database.", exception.getMessage());
+        assertEquals(409, exception.getStatusCode());
+    }
+
+    @Test
+    void testCreateUserAsUser_MalformedUser_ShouldNotQueryTheDatabase() {
+        UserModel user = new UserModel();
+        user.setUsername("bad name!");
+        user.setEmail("new@example.com");
+        user.setPassword("password123");
+
+        assertThrows(UserException.UserInvalidValueException.class, () -> userService.createUserAsUser(user));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testCreateUserAsUser_ConcurrentDuplicate_ShouldConflict() {
+        UserModel user = new UserModel();
+        user.setUsername("testUser");
+        user.setEmail("test@example.com");
+        user.setPassword("password123");
+
+        when(userRepository.findFirstByUsernameOrEmail(any(), any())).thenReturn(null);
+        when(userRepository.insert(any(UserModel.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: username_unique"))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: email_unique"));
+
+        assertThrows(UserException.UserConflictException.class, () -> userService.createUserAsUser(user));
+        // The first attempt replaced the password with its hash
+        user.setPassword("password123");
+        assertThrows(UserException.UserEmailConflictException.class, () -> userService.createUserAsUser(user));
     }
 
     @Test
@@ -120,6 +204,73 @@ class UserServiceTest {
         assertEquals("testUser", loggedUser.getUsername());
     }
 
+    @Test
+    void testLoginUser_ShouldRehashOutdatedPassword() throws UserException {
+        PasswordEncoder passwordEncoder = new Config().passwordEncoder("bcrypt", 5, 19456, 2);
+        ReflectionTestUtils.setField(userService, "passwordHashingService",
+                new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, 5000));
+        UserModel user = new UserModel();
+        user.setUsername("testUser");
+        user.setId("user");
+        String oldHash = new BCryptPasswordEncoder(4).encode("password123");
+        user.setPassword(oldHash);
+
+        when(userRepository.findByUsername("testUser")).thenReturn(user);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserModel.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        userService.loginUser("testUser", "password123");
+
+        assertTrue(user.getPassword().startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches("password123", user.getPassword()));
+        verify(mongoTemplate).updateFirst(
+                argThat((Query query) -> query.getQueryObject().get("_id").equals("user")
+                        && query.getQueryObject().get("password").equals(oldHash)),
+                argThat((Update update) -> update.getUpdateObject().get("$set", Document.class).keySet().equals(Set.of("password"))),
+                eq(UserModel.class));
+        verify(userRepository, never()).save(any(UserModel.class));
+
+        userService.loginUser("testUser", "password123");
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(UserModel.class));
+    }
+
+    @Test
+    void testLoginUser_ShouldSucceedWhenTheRehashCannotBeSaved() throws UserException {
+        ReflectionTestUtils.setField(userService, "passwordHashingService", new PasswordHashingService(
+                new Config().passwordEncoder("bcrypt", 5, 19456, 2), new SimpleMeterRegistry(), 1, 4, 5000));
+        UserModel user = new UserModel();
+        user.setUsername("testUser");
+        String oldHash = new BCryptPasswordEncoder(4).encode("password123");
+        user.setPassword(oldHash);
+
+        when(userRepository.findByUsername("testUser")).thenReturn(user);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserModel.class)))
+                .thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+
+        assertSame(user, userService.loginUser("testUser", "password123"));
+        assertEquals(oldHash, user.getPassword());
+    }
+
+    @Test
+    void testLoginUser_ShouldMoveHashToConfiguredAlgorithm() throws UserException {
+        PasswordEncoder passwordEncoder = new Config().passwordEncoder("argon2", 4, 1024, 1);
+        ReflectionTestUtils.setField(userService, "passwordHashingService",
+                new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, 5000));
+        UserModel user = new UserModel();
+        user.setUsername("testUser");
+        user.setPassword("{bcrypt}" + new BCryptPasswordEncoder(4).encode("password123"));
+
+        when(userRepository.findByUsername("testUser")).thenReturn(user);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserModel.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        userService.loginUser("testUser", "password123");
+
+        assertTrue(user.getPassword().startsWith("{argon2}"));
+        assertTrue(passwordEncoder.matches("password123", user.getPassword()));
+    }
+
     @Test
     void testLoginUser_InvalidPassword() {
         UserModel user = new UserModel();
@@ -145,4 +296,29 @@ class UserServiceTest {
 
         assertEquals("User with ID: nonexistentUser, not found in the database.", exception.getMessage());
     }
+
+    @Test
+    void testLoginUser_UnknownUserTwice_ShouldQueryOnce() throws UserException {
+        when(userRepository.findByUsername("nonexistentUser")).thenReturn(null);
+
+        assertThrows(UserException.UserNotFoundException.class, () -> userService.loginUser("nonexistentUser", "password123"));
+        assertThrows(UserException.UserNotFoundException.class, () -> userService.loginUser("nonexistentUser", "password123"));
+
+        verify(userRepository, times(1)).findByUsername("nonexistentUser");
+    }
+
+    @Test
+    void testLoginUser_AfterRegistration_ShouldForgetUnknownName() throws UserException {
+        UserModel user = new UserModel();
+        user.setUsername("testUser");
+        user.setEmail("test@example.com");
+        user.setPassword("password123");
+        user.setRole(Role.ROLE_USER.name());
+        assertThrows(UserException.UserNotFoundException.class, () -> userService.loginUser("testUser", "password123"));
+
+        userService.createUserAsUser(user);
+        when(userRepository.findByUsername("testUser")).thenReturn(user);
+
+        assertEquals("testUser", userService.loginUser("testUser", "password123").getUsername());
+    }
 }